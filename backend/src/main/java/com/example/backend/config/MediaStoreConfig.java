@@ -0,0 +1,55 @@
+package com.example.backend.config;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.backend.service.GridFsMediaStore;
+import com.example.backend.service.HotMediaCache;
+import com.example.backend.service.LocalMediaStore;
+import com.example.backend.service.MediaStore;
+import com.example.backend.service.MemoryMediaStore;
+import com.example.backend.service.TieredMediaStore;
+import com.mongodb.client.gridfs.GridFSBucket;
+
+/**
+ * Builds the media tier chain from {@code media.store.tiers}, fastest first.
+ * The default keeps hot files in memory and uses this node's disk as a cache
+ * in front of GridFS, which every node shares.
+ */
+@Configuration
+public class MediaStoreConfig {
+
+    @Bean
+    public TieredMediaStore mediaStore(
+            @Value("${media.store.tiers:memory,local,gridfs}") List<String> tierNames,
+            @Value("${media.store.local.directory:${upload.directory:uploads}/media}") String localDirectory,
+            @Value("${media.store.local.max-bytes:1073741824}") long localMaxBytes,
+            GridFSBucket gridFSBucket,
+            HotMediaCache hotMediaCache,
+            @Qualifier("taskExecutor") Executor executor) {
+        List<MediaStore> tiers = new ArrayList<>();
+        for (String name : tierNames) {
+            switch (name.trim()) {
+                case "memory":
+                    tiers.add(new MemoryMediaStore(hotMediaCache));
+                    break;
+                case "local":
+                    tiers.add(new LocalMediaStore(Paths.get(localDirectory), localMaxBytes));
+                    break;
+                case "gridfs":
+                    tiers.add(new GridFsMediaStore(gridFSBucket));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown media store tier: " + name);
+            }
+        }
+        return new TieredMediaStore(tiers, executor);
+    }
+}
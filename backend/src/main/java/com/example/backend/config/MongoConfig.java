@@ -0,0 +1,14 @@
+package com.example.backend.config;
+
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer queryCounterCustomizer() {
+        return builder -> builder.addCommandListener(new MongoQueryCounter());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.backend.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+/**
+ * Counts Mongo commands issued on the current request thread. The sync driver
+ * fires command events on the calling thread, so a thread-local counter is
+ * enough to attribute round trips to the request that caused them.
+ */
+public class MongoQueryCounter implements CommandListener {
+    private static final ThreadLocal<int[]> REQUEST_COUNT = new ThreadLocal<>();
+    private static final AtomicLong TOTAL_COUNT = new AtomicLong();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        TOTAL_COUNT.incrementAndGet();
+        int[] count = REQUEST_COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    /**
+     * Start counting for the current thread.
+     */
+    public static void begin() {
+        REQUEST_COUNT.set(new int[1]);
+    }
+
+    /**
+     * Commands issued since {@link #begin()}, or -1 if counting is not active.
+     */
+    public static int current() {
+        int[] count = REQUEST_COUNT.get();
+        return count != null ? count[0] : -1;
+    }
+
+    public static void end() {
+        REQUEST_COUNT.remove();
+    }
+
+    public static long total() {
+        return TOTAL_COUNT.get();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Exposes the number of Mongo commands a request issued as the
+ * {@code X-Query-Count} response header and logs it at debug level.
+ */
+@ControllerAdvice
+public class QueryCountInterceptor implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCountInterceptor.class);
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        MongoQueryCounter.begin();
+        return true;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        // Headers must be set before the body is written, so this is the last point
+        // where the count for the handler can be reported
+        int count = MongoQueryCounter.current();
+        if (count >= 0) {
+            response.getHeaders().set(QUERY_COUNT_HEADER, String.valueOf(count));
+        }
+        return body;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        int count = MongoQueryCounter.current();
+        if (count >= 0) {
+            logger.debug("{} {} issued {} Mongo commands", request.getMethod(), request.getRequestURI(), count);
+        }
+        MongoQueryCounter.end();
+    }
+}
@@ -58,6 +58,7 @@ public class SecurityConfig {
                                                 .requestMatchers(HttpMethod.GET, "/api/posts", "/api/posts/**",
                                                                 "/api/media/**")
                                                 .permitAll()
+                                                .requestMatchers(HttpMethod.HEAD, "/api/posts/since").permitAll()
                                                 .requestMatchers("/api/reactions", "/api/reactions/**").permitAll() // Changed
                                                                                                                     // this
                                                                                                                     // line
@@ -100,7 +101,7 @@ public class SecurityConfig {
                                 "http://localhost:3001",
                                 "http://localhost:3002"));
                 configuration.setAllowedMethods(Arrays.asList(
-                                "GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD"));
+                                "GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD"));
                 configuration.setAllowedHeaders(Arrays.asList(
                                 "Authorization",
                                 "Content-Type",
@@ -112,7 +113,8 @@ public class SecurityConfig {
                                 "Cache-Control",
                                 "Pragma",
                                 "If-Modified-Since",
-                                "If-None-Match"));
+                                "If-None-Match",
+                                "Upload-Offset")); // Resumable uploads
                 configuration.setExposedHeaders(Arrays.asList(
                                 "Authorization",
                                 "Content-Disposition",
@@ -127,6 +129,10 @@ public class SecurityConfig {
                                 "ETag",
                                 "X-Total-Count", // Add these headers for reaction counts
                                 "X-Response-Time",
+                                "X-Query-Count",
+                                "Upload-Offset",
+                                "Upload-Length",
+                                "X-New-Post-Count", // Feed delta count
                                 "Access-Control-Expose-Headers"));
                 configuration.setAllowCredentials(true);
                 configuration.setMaxAge(3600L);
@@ -3,29 +3,44 @@ package com.example.backend.config;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.Resource;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.resource.PathResourceResolver;
 
+import com.example.backend.controller.PostController;
+import com.example.backend.controller.UploadController;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
     @Value("${upload.directory}")
     private String uploadDirectory;
 
+    @Autowired
+    private QueryCountInterceptor queryCountInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(queryCountInterceptor).addPathPatterns("/api/**");
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         Path uploadDir = Paths.get(uploadDirectory).toAbsolutePath().normalize();
         registry.addResourceHandler("/api/uploads/**", "/api/media/**")
                 .addResourceLocations("file:" + uploadDir.toString() + "/")
-                .setCacheControl(CacheControl.noCache().mustRevalidate())
+                // Uploaded files are never rewritten under the same name
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
                 .resourceChain(true)
                 .addResolver(new PathResourceResolver() {
                     @Override
@@ -43,11 +58,13 @@ public class WebConfig implements WebMvcConfigurer {
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOrigins("http://localhost:3000", "http://localhost:3001", "http://localhost:3002")
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD")
+                .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD")
                 .allowedHeaders("*")
                 .exposedHeaders(HttpHeaders.CONTENT_DISPOSITION, HttpHeaders.CONTENT_LENGTH,
                         HttpHeaders.CONTENT_RANGE, HttpHeaders.ACCEPT_RANGES,
-                        HttpHeaders.CONTENT_TYPE)
+                        HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG, QueryCountInterceptor.QUERY_COUNT_HEADER,
+                        UploadController.UPLOAD_OFFSET_HEADER, UploadController.UPLOAD_LENGTH_HEADER,
+                        PostController.NEW_POST_COUNT_HEADER)
                 .allowCredentials(true)
                 .maxAge(3600);
     }
@@ -9,6 +9,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.backend.service.AdminStatsService;
+import com.example.backend.service.CommentCountReconciler;
+import com.example.backend.service.HotMediaCache;
+import com.example.backend.service.MediaGarbageCollector;
+import com.example.backend.service.MediaMetadataService;
+import com.example.backend.service.TieredMediaStore;
+import com.example.backend.service.TimelineService;
+import com.example.backend.service.UserSummaryCache;
 import com.example.backend.dto.StatsResponse;
 
 import java.util.Map;
@@ -23,6 +30,27 @@ public class AdminStatsController {
     @Autowired
     private AdminStatsService adminStatsService;
 
+    @Autowired
+    private UserSummaryCache userSummaryCache;
+
+    @Autowired
+    private MediaMetadataService mediaMetadataService;
+
+    @Autowired
+    private HotMediaCache hotMediaCache;
+
+    @Autowired
+    private TieredMediaStore mediaStore;
+
+    @Autowired
+    private MediaGarbageCollector mediaGarbageCollector;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private CommentCountReconciler commentCountReconciler;
+
     @GetMapping("/users")
     public ResponseEntity<?> getUserStats() {
         StatsResponse stats = adminStatsService.getUserStats();
@@ -42,4 +70,25 @@ public class AdminStatsController {
         response.put("count", todayPostsCount);
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("/cache")
+    public ResponseEntity<?> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("userSummary", userSummaryCache.getStats());
+        response.put("mediaMetadata", mediaMetadataService.getStats());
+        response.put("hotMedia", hotMediaCache.getStats());
+        response.put("mediaStore", mediaStore.getStats());
+        response.put("homeTimeline", timelineService.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/media-gc")
+    public ResponseEntity<?> getMediaGcStats() {
+        return ResponseEntity.ok(mediaGarbageCollector.getStats());
+    }
+
+    @GetMapping("/comment-counts")
+    public ResponseEntity<?> getCommentCountStats() {
+        return ResponseEntity.ok(commentCountReconciler.getStats());
+    }
 }
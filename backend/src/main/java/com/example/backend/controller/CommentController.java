@@ -1,7 +1,9 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.CommentPage;
 import com.example.backend.model.CommentResponse;
 import com.example.backend.service.CommentService;
+import com.example.backend.service.CommentThreadService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,10 +18,12 @@ import java.util.Map;
 @CrossOrigin(origins = { "http://localhost:3000", "http://localhost:3001", "http://localhost:3002" })
 public class CommentController {
     private final CommentService commentService;
+    private final CommentThreadService commentThreadService;
 
     @Autowired
-    public CommentController(CommentService commentService) {
+    public CommentController(CommentService commentService, CommentThreadService commentThreadService) {
         this.commentService = commentService;
+        this.commentThreadService = commentThreadService;
     }
 
     @PostMapping
@@ -69,12 +73,55 @@ public class CommentController {
         }
     }
 
+    /**
+     * Comments of a post newest first, a page at a time; pass the previous
+     * page's nextCursor as cursor for the next one.
+     */
     @GetMapping("/post/{postId}")
-    public ResponseEntity<List<CommentResponse>> getPostComments(
+    public ResponseEntity<?> getPostComments(
             @PathVariable String postId,
-            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
             @RequestParam(required = false) String currentUserId) {
-        return ResponseEntity.ok(commentService.getPostComments(postId, limit, currentUserId));
+        try {
+            CommentPage page = commentService.getCommentPage(postId, cursor, limit, currentUserId);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * The newest threads of a post, each root comment with its first replies
+     * and a cursor for {@link #getReplies} when it has more.
+     */
+    @GetMapping("/post/{postId}/threads")
+    public ResponseEntity<?> getPostThreads(
+            @PathVariable String postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "3") int replies,
+            @RequestParam(required = false) String currentUserId) {
+        try {
+            CommentPage page = commentThreadService.getThreads(postId, cursor, limit, replies, currentUserId);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{commentId}/replies")
+    public ResponseEntity<?> getReplies(
+            @PathVariable String commentId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String currentUserId) {
+        try {
+            CommentPage page = commentThreadService.getReplies(commentId, after, limit, currentUserId);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/count/{postId}")
@@ -3,9 +3,12 @@ package com.example.backend.controller;
 import com.example.backend.model.Group;
 import com.example.backend.service.GroupService;
 import com.example.backend.service.PostService;
+import com.example.backend.service.ScopeVersionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +26,9 @@ public class GroupController {
     @Autowired
     private PostService postService; // Add PostService dependency
 
+    @Autowired
+    private ScopeVersionService scopeVersionService;
+
     @PostMapping
     public ResponseEntity<?> createGroup(
             @RequestParam("name") String name,
@@ -69,10 +75,23 @@ public class GroupController {
     }
 
     @GetMapping("/{groupId}/posts")
-    public ResponseEntity<?> getGroupPosts(@PathVariable String groupId) {
+    public ResponseEntity<?> getGroupPosts(
+            @PathVariable String groupId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            // Unchanged since the client's copy: answer from the version stamp alone
+            String etag = scopeVersionService.etag(ScopeVersionService.group(groupId));
+            if (ScopeVersionService.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
             logger.info("Fetching posts for group: {}", groupId);
-            return ResponseEntity.ok(postService.getGroupPosts(groupId));
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(postService.getGroupPosts(groupId));
         } catch (Exception e) {
             logger.error("Error fetching group posts: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -1,19 +1,15 @@
 package com.example.backend.controller;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import java.util.Collections;
 
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
@@ -27,35 +23,53 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.example.backend.model.Post;
+import com.example.backend.dto.FeedDelta;
+import com.example.backend.dto.FeedPage;
+import com.example.backend.dto.PostIncludes;
+import com.example.backend.model.MediaMetadata;
 import com.example.backend.model.PostResponse;
 import com.example.backend.repository.PostRepository;
+import com.example.backend.service.ImageDerivativeService;
+import com.example.backend.service.MediaMetadataService;
+import com.example.backend.service.MediaStore;
 import com.example.backend.service.PostService;
-import com.mongodb.client.gridfs.GridFSBucket;
-import com.mongodb.client.gridfs.GridFSDownloadStream;
-import com.mongodb.client.gridfs.model.GridFSFile;
+import com.example.backend.service.ScopeVersionService;
 
 @RestController
 @RequestMapping("/api")
 public class PostController {
     private static final Logger logger = Logger.getLogger(PostController.class.getName());
+    private static final CacheControl MEDIA_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS)
+            .cachePublic()
+            .immutable();
+    public static final String NEW_POST_COUNT_HEADER = "X-New-Post-Count";
     private final PostService postService;
-    private final GridFSBucket gridFSBucket;
     private final PostRepository postRepository;
+    private final MediaMetadataService mediaMetadataService;
+    private final MediaStore mediaStore;
+    private final ImageDerivativeService imageDerivativeService;
+    private final ScopeVersionService scopeVersionService;
 
     @Value("${upload.directory}")
     private String uploadDirectory;
 
     @Autowired
-    public PostController(PostService postService, GridFSBucket gridFSBucket, PostRepository postRepository) {
+    public PostController(PostService postService, PostRepository postRepository,
+            MediaMetadataService mediaMetadataService, MediaStore mediaStore,
+            ImageDerivativeService imageDerivativeService, ScopeVersionService scopeVersionService) {
         this.postService = postService;
-        this.gridFSBucket = gridFSBucket;
         this.postRepository = postRepository;
+        this.mediaMetadataService = mediaMetadataService;
+        this.mediaStore = mediaStore;
+        this.imageDerivativeService = imageDerivativeService;
+        this.scopeVersionService = scopeVersionService;
     }
 
     @PostMapping("/posts")
@@ -63,7 +77,8 @@ public class PostController {
             @RequestParam("userId") String userId,
             @RequestParam("content") String content,
             @RequestParam(value = "images", required = false) List<MultipartFile> images,
-            @RequestParam(value = "video", required = false) MultipartFile video) {
+            @RequestParam(value = "video", required = false) MultipartFile video,
+            @RequestParam(value = "uploadId", required = false) String uploadId) {
         try {
             if (userId == null || userId.isEmpty()) {
                 return ResponseEntity.badRequest().body("User ID is required");
@@ -76,7 +91,11 @@ public class PostController {
                         ", contentType: " + video.getContentType());
             }
 
-            PostResponse post = postService.createPost(userId, content, images, video);
+            if (uploadId != null) {
+                logger.info("Attaching resumable upload: " + uploadId);
+            }
+
+            PostResponse post = postService.createPost(userId, content, images, video, uploadId);
             logger.info("Post created successfully with ID: " + post.getId());
             return ResponseEntity.ok(post);
         } catch (IllegalArgumentException e) {
@@ -89,20 +108,109 @@ public class PostController {
         }
     }
 
+    /**
+     * Listings answer 304 from the feed's version stamp when the client's copy
+     * is current, without reading any posts.
+     */
     @GetMapping("/posts")
-    public ResponseEntity<List<PostResponse>> getAllPosts() {
-        return ResponseEntity.ok(postService.getAllPosts());
+    public ResponseEntity<List<PostResponse>> getAllPosts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = scopeVersionService.etag(ScopeVersionService.FEED);
+        if (ScopeVersionService.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(postService.getAllPosts());
+    }
+
+    @GetMapping("/posts/feed")
+    public ResponseEntity<?> getFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            String etag = scopeVersionService.etag(ScopeVersionService.FEED);
+            if (ScopeVersionService.matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            FeedPage page = postService.getFeedPage(cursor, limit);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(page);
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid feed request: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.severe("Error fetching feed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to fetch feed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Posts and tombstones newer than the sinceCursor of the first feed page
+     * or of the previous delta, for refreshing a loaded feed.
+     */
+    @GetMapping("/posts/since")
+    public ResponseEntity<?> getFeedSince(@RequestParam String cursor) {
+        try {
+            FeedDelta delta = postService.getFeedSince(cursor);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(delta);
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid feed delta request: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.severe("Error fetching feed delta: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to fetch feed delta: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Only how many posts are new, in a header, without deletions or bodies.
+     */
+    @RequestMapping(value = "/posts/since", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> countFeedSince(@RequestParam String cursor) {
+        try {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .header(NEW_POST_COUNT_HEADER, String.valueOf(postService.countFeedSince(cursor)))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/posts/user/{userId}")
-    public ResponseEntity<List<PostResponse>> getUserPosts(@PathVariable String userId) {
-        return ResponseEntity.ok(postService.getUserPosts(userId));
+    public ResponseEntity<List<PostResponse>> getUserPosts(
+            @PathVariable String userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = scopeVersionService.etag(ScopeVersionService.user(userId));
+        if (ScopeVersionService.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(postService.getUserPosts(userId));
     }
 
+    /**
+     * @param include optional parts to compute, e.g.
+     *                {@code commentCount,reactionSummary,firstComments:3}
+     */
     @GetMapping("/posts/{postId}")
-    public ResponseEntity<?> getPostById(@PathVariable String postId) {
+    public ResponseEntity<?> getPostById(
+            @PathVariable String postId,
+            @RequestParam(required = false) String include,
+            @RequestParam(required = false) String currentUserId) {
         try {
-            PostResponse post = postService.getPostById(postId);
+            PostResponse post = postService.getPostById(postId, PostIncludes.parse(include), currentUserId);
             return ResponseEntity.ok(post);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -181,90 +289,85 @@ public class PostController {
         }
     }
 
+    /**
+     * Stream a media file. The body is a Resource, so Spring MVC copies it to the
+     * response through a small buffer and answers Range requests with 206
+     * partial content, which lets video players seek without a full download.
+     *
+     * Media IDs never change content, so responses are cacheable forever and a
+     * matching If-None-Match is answered with 304 before touching any store.
+     * Content type and length come from the media metadata cache, so a hot media
+     * ID is served without any query against posts or the GridFS files collection.
+     * The bytes come from the first tier of the MediaStore chain that has them.
+     *
+     * With a size parameter the resized derivative of that width is served. Until
+     * it has been generated the original is served uncached instead.
+     */
     @GetMapping("/media/{mediaId}")
-    public ResponseEntity<Resource> getMedia(@PathVariable String mediaId) {
+    public ResponseEntity<Resource> getMedia(
+            @PathVariable String mediaId,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            String etag = "\"" + mediaId + (size != null ? "-" + size : "") + "\"";
+            if (etagMatches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(MEDIA_CACHE_CONTROL)
+                        .build();
+            }
+
             logger.info("Fetching media with ID: " + mediaId);
 
-            // Check if file exists in local storage first
-            Path localFilePath = Paths.get("backend", "uploads", mediaId);
-            if (Files.exists(localFilePath)) {
-                logger.info("Found media in local storage: " + localFilePath);
-                byte[] data = Files.readAllBytes(localFilePath);
-
-                // Look for content type in post metadata if available
-                String contentType = null;
-                try {
-                    List<Post> posts = postRepository.findByMediaIdsContaining(mediaId);
-                    if (!posts.isEmpty() && posts.get(0).getMediaTypes() != null) {
-                        contentType = posts.get(0).getMediaTypes().get(mediaId);
-                        logger.info("Found content type from post metadata: " + contentType);
-                    }
-                } catch (Exception e) {
-                    logger.warning("Error retrieving media type from post: " + e.getMessage());
+            Optional<MediaMetadata> metadata = mediaMetadataService.find(mediaId);
+
+            CacheControl cacheControl = MEDIA_CACHE_CONTROL;
+            if (size != null && metadata.isPresent()) {
+                Optional<MediaMetadata> derivative = mediaMetadataService.findDerivative(metadata.get(), size);
+                Optional<Resource> resized = derivative.flatMap(
+                        d -> mediaStore.read(d.getId(), d.getLength()));
+                if (resized.isPresent()) {
+                    return ResponseEntity
+                            .status(HttpStatus.OK)
+                            .headers(mediaHeaders(derivative.get().getContentType(), etag, MEDIA_CACHE_CONTROL))
+                            .body(resized.get());
                 }
-
-                if (contentType == null) {
-                    contentType = determineContentType(localFilePath.getFileName().toString(), null);
+                if (imageDerivativeService.isPending(metadata.get(), size)) {
+                    // Must not be cached under the sized URL, or the derivative is never fetched
+                    cacheControl = CacheControl.noStore();
+                    etag = null;
                 }
-
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.parseMediaType(contentType));
-                headers.setContentLength(data.length);
-                headers.setCacheControl(CacheControl.noCache().getHeaderValue());
-                headers.setPragma("no-cache");
-                headers.setExpires(0L);
-                headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
-
-                return ResponseEntity
-                        .status(HttpStatus.OK)
-                        .headers(headers)
-                        .body(new ByteArrayResource(data));
             }
 
-            // If not in local storage, fallback to GridFS
             // Validate ObjectId format
             if (!ObjectId.isValid(mediaId)) {
                 logger.warning("Invalid media ID format: " + mediaId);
                 return ResponseEntity.badRequest().build();
             }
 
-            ObjectId objectId = new ObjectId(mediaId);
-            GridFSFile file = gridFSBucket.find(new org.bson.Document("_id", objectId)).first();
-
-            if (file == null) {
+            // A miss in the metadata store has already been checked against GridFS;
+            // copies left in other tiers of deleted media are never served
+            if (metadata.isEmpty()) {
                 logger.warning("Media not found with ID: " + mediaId);
                 return ResponseEntity.notFound().build();
             }
 
-            try (GridFSDownloadStream downloadStream = gridFSBucket.openDownloadStream(objectId);
-                    ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = downloadStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                }
-                byte[] data = outputStream.toByteArray();
-
-                String contentType = determineContentType(file.getFilename(), file.getMetadata());
-
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.parseMediaType(contentType));
-                headers.setContentLength(data.length);
-                headers.setCacheControl(CacheControl.noCache().getHeaderValue());
-                headers.setPragma("no-cache");
-                headers.setExpires(0L);
-                headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
-
-                return ResponseEntity
-                        .status(HttpStatus.OK)
-                        .headers(headers)
-                        .body(new ByteArrayResource(data));
+            MediaMetadata media = metadata.get();
+            // Duplicate uploads share the bytes (and the cached copies) of the first upload
+            Optional<Resource> content = mediaStore.read(media.resolveContentId(), media.getLength());
+            if (content.isEmpty()) {
+                logger.warning("Media bytes not found for ID: " + mediaId);
+                return ResponseEntity.notFound().build();
             }
-        } catch (IOException e) {
-            logger.severe("Error reading file from local storage: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+
+            String contentType = media.getContentType() != null
+                    ? media.getContentType()
+                    : MediaMetadataService.guessContentType(media.getFilename(), null);
+
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .headers(mediaHeaders(contentType, etag, cacheControl))
+                    .body(content.get());
         } catch (IllegalArgumentException e) {
             logger.warning("Invalid media ID: " + e.getMessage());
             return ResponseEntity.badRequest().build();
@@ -275,45 +378,38 @@ public class PostController {
         }
     }
 
-    private String determineContentType(String filename, org.bson.Document metadata) {
-        // Try to get from metadata first
-        if (metadata != null && metadata.containsKey("contentType")) {
-            return metadata.getString("contentType");
+    // Content-Length, Content-Range and Accept-Ranges are written by Spring's
+    // resource converters, since they depend on the requested range
+    private HttpHeaders mediaHeaders(String contentType, String etag, CacheControl cacheControl) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(contentType));
+        headers.setCacheControl(cacheControl);
+        if (etag != null) {
+            headers.setETag(etag);
         }
+        return headers;
+    }
 
-        if (metadata != null && metadata.getString("type") != null) {
-            switch (metadata.getString("type")) {
-                case "image":
-                    return "image/jpeg";
-                case "video":
-                    return "video/mp4";
-            }
-        }
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
 
-        // Fallback to filename extension
-        if (filename != null) {
-            filename = filename.toLowerCase();
-            if (filename.endsWith(".jpg") || filename.endsWith(".jpeg")) {
-                return "image/jpeg";
-            }
-            if (filename.endsWith(".png")) {
-                return "image/png";
-            }
-            if (filename.endsWith(".mp4")) {
-                return "video/mp4";
-            }
-            if (filename.endsWith(".mov")) {
-                return "video/quicktime";
-            }
-            if (filename.endsWith(".gif")) {
-                return "image/gif";
+    private boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
             }
-            if (filename.endsWith(".webp")) {
-                return "image/webp";
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
             }
         }
-
-        // Default fallback
-        return "application/octet-stream";
+        return false;
     }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package com.example.backend.controller;
 
-import com.example.backend.model.Reaction;
+import com.example.backend.dto.ReactionToggleResult;
 import com.example.backend.service.ReactionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,12 +22,11 @@ public class ReactionController {
             @RequestParam String userId,
             @RequestParam String postId) {
         try {
-            boolean isLiked = reactionService.toggleReaction(userId, postId);
-            long count = reactionService.getReactionCount(postId);
+            ReactionToggleResult result = reactionService.toggleReaction(userId, postId);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("liked", isLiked);
-            response.put("count", count);
+            response.put("liked", result.isLiked());
+            response.put("count", result.getCount());
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -0,0 +1,135 @@
+package com.example.backend.controller;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.backend.model.UploadSession;
+import com.example.backend.service.ChunkedUploadService;
+
+/**
+ * Resumable video uploads. A client starts a session with the file size,
+ * sends the bytes with PATCH requests that each carry the offset they start
+ * at (Upload-Offset), asks HEAD where to continue after a failure, completes
+ * the session and then creates the post with the returned upload ID.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+    private static final Logger logger = Logger.getLogger(UploadController.class.getName());
+
+    public static final String UPLOAD_OFFSET_HEADER = "Upload-Offset";
+    public static final String UPLOAD_LENGTH_HEADER = "Upload-Length";
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    public UploadController(ChunkedUploadService chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> startUpload(
+            @RequestParam String userId,
+            @RequestParam(required = false) String filename,
+            @RequestParam String contentType,
+            @RequestParam long length) {
+        try {
+            UploadSession session = chunkedUploadService.start(userId, filename, contentType, length);
+            logger.info("Started upload " + session.getId() + " for user " + userId + ", length: " + length);
+            return ResponseEntity.status(HttpStatus.CREATED).body(toBody(session));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @RequestMapping(value = "/{uploadId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> getOffset(@PathVariable String uploadId, @RequestParam String userId) {
+        Optional<UploadSession> session = chunkedUploadService.find(uploadId, userId);
+        if (session.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET_HEADER, String.valueOf(session.get().getOffset()))
+                .header(UPLOAD_LENGTH_HEADER, String.valueOf(session.get().getLength()))
+                .build();
+    }
+
+    @PatchMapping("/{uploadId}")
+    public ResponseEntity<?> appendChunk(
+            @PathVariable String uploadId,
+            @RequestParam String userId,
+            @RequestHeader(UPLOAD_OFFSET_HEADER) long offset,
+            InputStream body) {
+        Optional<UploadSession> session = chunkedUploadService.find(uploadId, userId);
+        if (session.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            long newOffset = chunkedUploadService.append(session.get(), offset, body);
+            return ResponseEntity.noContent()
+                    .header(UPLOAD_OFFSET_HEADER, String.valueOf(newOffset))
+                    .build();
+        } catch (ChunkedUploadService.OffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(UPLOAD_OFFSET_HEADER, String.valueOf(e.getCurrentOffset()))
+                    .body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable String uploadId, @RequestParam String userId) {
+        Optional<UploadSession> session = chunkedUploadService.find(uploadId, userId);
+        if (session.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(toBody(chunkedUploadService.complete(session.get())));
+        } catch (ChunkedUploadService.OffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(UPLOAD_OFFSET_HEADER, String.valueOf(e.getCurrentOffset()))
+                    .body("Upload is incomplete: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            // The upload has been discarded
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<?> abortUpload(@PathVariable String uploadId, @RequestParam String userId) {
+        Optional<UploadSession> session = chunkedUploadService.find(uploadId, userId);
+        if (session.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        chunkedUploadService.abort(session.get());
+        return ResponseEntity.noContent().build();
+    }
+
+    private Map<String, Object> toBody(UploadSession session) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("uploadId", session.getId());
+        body.put("offset", session.getOffset());
+        body.put("length", session.getLength());
+        body.put("chunkSize", session.getChunkSize());
+        body.put("status", session.getStatus());
+        body.put("expiresAt", session.getExpiresAt());
+        return body;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.backend.model.CommentResponse;
+
+public class CommentPage {
+    private List<CommentResponse> comments = new ArrayList<>();
+    private String nextCursor; // null when there are no more comments
+    private boolean hasMore;
+
+    public CommentPage() {
+    }
+
+    public CommentPage(List<CommentResponse> comments, String nextCursor) {
+        this.comments = comments;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    public List<CommentResponse> getComments() {
+        return comments;
+    }
+
+    public void setComments(List<CommentResponse> comments) {
+        this.comments = comments;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
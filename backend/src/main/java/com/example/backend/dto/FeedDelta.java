@@ -0,0 +1,65 @@
+package com.example.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.backend.model.PostResponse;
+
+/**
+ * What changed in the home feed since a {@link SinceCursor}: new posts,
+ * newest first, and the IDs of deleted ones.
+ */
+public class FeedDelta {
+    private List<PostResponse> posts = new ArrayList<>();
+    private List<String> deletedIds = new ArrayList<>();
+    private String cursor; // high-water mark for the next delta request
+    // Too much changed to send as a delta; the client should reload the first feed page
+    private boolean reset;
+
+    public FeedDelta() {
+    }
+
+    public FeedDelta(List<PostResponse> posts, List<String> deletedIds, String cursor) {
+        this.posts = posts;
+        this.deletedIds = deletedIds;
+        this.cursor = cursor;
+    }
+
+    public static FeedDelta reset() {
+        FeedDelta delta = new FeedDelta();
+        delta.setReset(true);
+        return delta;
+    }
+
+    public List<PostResponse> getPosts() {
+        return posts;
+    }
+
+    public void setPosts(List<PostResponse> posts) {
+        this.posts = posts;
+    }
+
+    public List<String> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public void setDeletedIds(List<String> deletedIds) {
+        this.deletedIds = deletedIds;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+}
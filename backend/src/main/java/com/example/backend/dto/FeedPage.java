@@ -0,0 +1,55 @@
+package com.example.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.backend.model.PostResponse;
+
+public class FeedPage {
+    private List<PostResponse> posts = new ArrayList<>();
+    private String nextCursor; // null when there are no older posts
+    private boolean hasMore;
+    // First page only: high-water mark for /api/posts/since
+    private String sinceCursor;
+
+    public FeedPage() {
+    }
+
+    public FeedPage(List<PostResponse> posts, String nextCursor) {
+        this.posts = posts;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    public List<PostResponse> getPosts() {
+        return posts;
+    }
+
+    public void setPosts(List<PostResponse> posts) {
+        this.posts = posts;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public String getSinceCursor() {
+        return sinceCursor;
+    }
+
+    public void setSinceCursor(String sinceCursor) {
+        this.sinceCursor = sinceCursor;
+    }
+}
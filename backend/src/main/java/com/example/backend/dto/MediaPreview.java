@@ -0,0 +1,29 @@
+package com.example.backend.dto;
+
+/**
+ * What a client needs to lay out an image before its bytes arrive: the pixel
+ * size of the original and a tiny inline preview to show in its place.
+ */
+public final class MediaPreview {
+    private final Integer width;
+    private final Integer height;
+    private final String placeholder; // data: URI, null when none could be made
+
+    public MediaPreview(Integer width, Integer height, String placeholder) {
+        this.width = width;
+        this.height = height;
+        this.placeholder = placeholder;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public String getPlaceholder() {
+        return placeholder;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.backend.dto;
+
+/**
+ * Optional parts of a single post, parsed from the {@code include} parameter
+ * of {@code GET /api/posts/{postId}}, e.g.
+ * {@code commentCount,reactionSummary,firstComments:3}. Nothing beyond the
+ * post itself is computed unless it is named here.
+ */
+public class PostIncludes {
+    public static final int MAX_FIRST_COMMENTS = 20;
+
+    private static final PostIncludes NONE = new PostIncludes(false, false, 0);
+
+    private final boolean commentCount;
+    private final boolean reactionSummary;
+    private final int firstComments;
+
+    public PostIncludes(boolean commentCount, boolean reactionSummary, int firstComments) {
+        this.commentCount = commentCount;
+        this.reactionSummary = reactionSummary;
+        this.firstComments = firstComments;
+    }
+
+    public static PostIncludes none() {
+        return NONE;
+    }
+
+    /**
+     * @throws IllegalArgumentException if include names an unknown part or a
+     *                                  comment count that is not a number
+     */
+    public static PostIncludes parse(String include) {
+        if (include == null || include.isBlank()) {
+            return NONE;
+        }
+
+        boolean commentCount = false;
+        boolean reactionSummary = false;
+        int firstComments = 0;
+        for (String part : include.split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) {
+                continue;
+            }
+            if (part.equals("commentCount")) {
+                commentCount = true;
+            } else if (part.equals("reactionSummary")) {
+                reactionSummary = true;
+            } else if (part.equals("firstComments") || part.startsWith("firstComments:")) {
+                firstComments = 3;
+                if (part.length() > "firstComments:".length()) {
+                    try {
+                        firstComments = Integer.parseInt(part.substring("firstComments:".length()));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid include: " + part);
+                    }
+                }
+                firstComments = Math.max(0, Math.min(firstComments, MAX_FIRST_COMMENTS));
+            } else {
+                throw new IllegalArgumentException("Invalid include: " + part);
+            }
+        }
+        return new PostIncludes(commentCount, reactionSummary, firstComments);
+    }
+
+    public boolean isCommentCount() {
+        return commentCount;
+    }
+
+    public boolean isReactionSummary() {
+        return reactionSummary;
+    }
+
+    public int getFirstComments() {
+        return firstComments;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.backend.dto;
+
+import java.util.Map;
+
+/**
+ * Reactions on a post as returned with {@code include=reactionSummary}: the
+ * maintained like counter, the per-type counts stored on the post and, when a
+ * viewer is given, whether that viewer liked it.
+ */
+public class ReactionSummary {
+    private final long count;
+    private final Map<String, Integer> byType;
+    private final Boolean viewerReacted;
+
+    public ReactionSummary(long count, Map<String, Integer> byType, Boolean viewerReacted) {
+        this.count = count;
+        this.byType = byType;
+        this.viewerReacted = viewerReacted;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Map<String, Integer> getByType() {
+        return byType;
+    }
+
+    public Boolean getViewerReacted() {
+        return viewerReacted;
+    }
+}
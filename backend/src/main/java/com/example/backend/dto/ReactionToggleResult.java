@@ -0,0 +1,19 @@
+package com.example.backend.dto;
+
+public class ReactionToggleResult {
+    private final boolean liked;
+    private final long count;
+
+    public ReactionToggleResult(boolean liked, long count) {
+        this.liked = liked;
+        this.count = count;
+    }
+
+    public boolean isLiked() {
+        return liked;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
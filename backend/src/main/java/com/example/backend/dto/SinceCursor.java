@@ -0,0 +1,70 @@
+package com.example.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Opaque high-water mark for feed delta requests: the newest post a client
+ * has (createdAt, _id) and when it last synced, which bounds the tombstones
+ * it still needs.
+ */
+public class SinceCursor {
+    private static final String SEPARATOR = "|";
+    // Before any post: a client with an empty feed gets every post as new
+    private static final String NO_POST_ID = "000000000000000000000000";
+    private static final LocalDateTime NO_POST_CREATED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final LocalDateTime createdAt;
+    private final String id;
+    private final LocalDateTime syncedAt;
+
+    public SinceCursor(LocalDateTime createdAt, String id, LocalDateTime syncedAt) {
+        this.createdAt = createdAt;
+        this.id = id;
+        this.syncedAt = syncedAt;
+    }
+
+    public static SinceCursor empty(LocalDateTime syncedAt) {
+        return new SinceCursor(NO_POST_CREATED_AT, NO_POST_ID, syncedAt);
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public LocalDateTime getSyncedAt() {
+        return syncedAt;
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id + SEPARATOR + syncedAt.toString();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static SinceCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+            if (parts.length != 3 || !ObjectId.isValid(parts[1])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new SinceCursor(LocalDateTime.parse(parts[0]), parts[1], LocalDateTime.parse(parts[2]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
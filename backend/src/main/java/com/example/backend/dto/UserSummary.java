@@ -0,0 +1,29 @@
+package com.example.backend.dto;
+
+/**
+ * Immutable slice of a user that responses need to render an author:
+ * no email, role or password hash.
+ */
+public final class UserSummary {
+    private final String id;
+    private final String displayName;
+    private final String avatarUrl;
+
+    public UserSummary(String id, String displayName, String avatarUrl) {
+        this.id = id;
+        this.displayName = displayName;
+        this.avatarUrl = avatarUrl;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getAvatarUrl() {
+        return avatarUrl;
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.backend.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -8,6 +11,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "comments")
+@CompoundIndexes({
+        @CompoundIndex(name = "post_cursor_idx", def = "{'postId': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "post_threads_idx", def = "{'postId': 1, 'parentCommentId': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "thread_path_idx", def = "{'rootId': 1, 'path': 1}")
+})
 public class Comment {
     @Id
     private String id;
@@ -16,7 +24,15 @@ public class Comment {
     private String content;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    @Indexed
     private String parentCommentId;
+    // Materialized path: the IDs from the thread's root comment down to this
+    // one, joined by "/". IDs are ObjectIds, so sorting by path lists a thread
+    // in reply order and a subtree is one range of paths. Null on comments
+    // from before paths were kept until CommentThreadService backfills them.
+    private String rootId;
+    private String path;
+    private int depth;
     private List<String> mentions = new ArrayList<>(); // Add list of mentioned user IDs
 
     public Comment() {
@@ -81,6 +97,30 @@ public class Comment {
         this.parentCommentId = parentCommentId;
     }
 
+    public String getRootId() {
+        return rootId;
+    }
+
+    public void setRootId(String rootId) {
+        this.rootId = rootId;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
     public List<String> getMentions() {
         return mentions;
     }
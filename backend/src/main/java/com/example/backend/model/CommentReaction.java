@@ -1,11 +1,13 @@
 package com.example.backend.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "comment_reactions")
+@CompoundIndex(name = "comment_user_idx", def = "{'commentId': 1, 'userId': 1}")
 public class CommentReaction {
     @Id
     private String id;
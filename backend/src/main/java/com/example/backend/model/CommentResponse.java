@@ -1,6 +1,9 @@
 package com.example.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class CommentResponse {
     private String id;
@@ -14,6 +17,12 @@ public class CommentResponse {
     private String parentCommentId; // Added to expose the relationship
     private int likeCount = 0;
     private boolean userLiked = false;
+    private int depth;
+    // Only set on the root comments of a thread listing
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<CommentResponse> replies;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String repliesCursor; // next page of replies, null when all are included
 
     public CommentResponse(Comment comment) {
         this.id = comment.getId();
@@ -23,6 +32,7 @@ public class CommentResponse {
         this.createdAt = comment.getCreatedAt();
         this.updatedAt = comment.getUpdatedAt();
         this.parentCommentId = comment.getParentCommentId(); // Include parent ID
+        this.depth = comment.getDepth();
     }
 
     // Add getters and setters
@@ -113,4 +123,28 @@ public class CommentResponse {
     public void setUserLiked(boolean userLiked) {
         this.userLiked = userLiked;
     }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public List<CommentResponse> getReplies() {
+        return replies;
+    }
+
+    public void setReplies(List<CommentResponse> replies) {
+        this.replies = replies;
+    }
+
+    public String getRepliesCursor() {
+        return repliesCursor;
+    }
+
+    public void setRepliesCursor(String repliesCursor) {
+        this.repliesCursor = repliesCursor;
+    }
 }
@@ -0,0 +1,56 @@
+package com.example.backend.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored copy of some media bytes, keyed by their SHA-256. Every upload
+ * of identical bytes, and every post that shares them, counts as a reference;
+ * the bytes are deleted when the last reference goes away.
+ */
+@Document(collection = "media_content")
+public class MediaContent {
+    @Id
+    private String id; // SHA-256 hex of the bytes
+    private String mediaId; // GridFS ID holding the bytes
+    private long refCount;
+    private LocalDateTime createdAt;
+
+    public MediaContent() {
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMediaId() {
+        return mediaId;
+    }
+
+    public void setMediaId(String mediaId) {
+        this.mediaId = mediaId;
+    }
+
+    public long getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(long refCount) {
+        this.refCount = refCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
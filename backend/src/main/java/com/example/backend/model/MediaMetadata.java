@@ -0,0 +1,181 @@
+package com.example.backend.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What the media endpoint needs to serve a file, recorded once at upload so
+ * serving never has to search posts. The ID is the GridFS file ID.
+ */
+@Document(collection = "media_metadata")
+public class MediaMetadata {
+    public static final String DERIVATIVES_PENDING = "PENDING";
+    public static final String DERIVATIVES_READY = "READY";
+    public static final String DERIVATIVES_FAILED = "FAILED";
+
+    @Id
+    private String id;
+    private String contentType;
+    private long length;
+    private String sha256;
+    // GridFS ID holding the bytes; differs from id when identical content was
+    // already stored by an earlier upload. Null for media recorded before dedup.
+    @Indexed
+    private String contentId;
+    private Integer width; // null for videos and unreadable images
+    private Integer height;
+    // Tiny blurred-preview data URI for images, shown inline before the bytes load
+    private String placeholder;
+    private String ownerId;
+    private String filename;
+    // Resized copies by target width ("320" -> media ID), only on the record
+    // that owns the bytes
+    private Map<String, String> derivatives = new HashMap<>();
+    // Set on a derivative's own record: the media ID it was generated from
+    private String derivativeOf;
+    // Whether derivatives are still coming, on the record that owns the bytes;
+    // null for media uploaded before they were generated and never requested
+    private String derivativeStatus;
+    private LocalDateTime derivativesRequestedAt;
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public MediaMetadata() {
+    }
+
+    public MediaMetadata(String id, String contentType, long length) {
+        this.id = id;
+        this.contentType = contentType;
+        this.length = length;
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public void setLength(long length) {
+        this.length = length;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public String getContentId() {
+        return contentId;
+    }
+
+    public void setContentId(String contentId) {
+        this.contentId = contentId;
+    }
+
+    // Helper method to get the ID to read the bytes from
+    public String resolveContentId() {
+        return contentId != null ? contentId : id;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public String getPlaceholder() {
+        return placeholder;
+    }
+
+    public void setPlaceholder(String placeholder) {
+        this.placeholder = placeholder;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public Map<String, String> getDerivatives() {
+        return derivatives;
+    }
+
+    public void setDerivatives(Map<String, String> derivatives) {
+        this.derivatives = derivatives;
+    }
+
+    public String getDerivativeOf() {
+        return derivativeOf;
+    }
+
+    public void setDerivativeOf(String derivativeOf) {
+        this.derivativeOf = derivativeOf;
+    }
+
+    public String getDerivativeStatus() {
+        return derivativeStatus;
+    }
+
+    public void setDerivativeStatus(String derivativeStatus) {
+        this.derivativeStatus = derivativeStatus;
+    }
+
+    public LocalDateTime getDerivativesRequestedAt() {
+        return derivativesRequestedAt;
+    }
+
+    public void setDerivativesRequestedAt(LocalDateTime derivativesRequestedAt) {
+        this.derivativesRequestedAt = derivativesRequestedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
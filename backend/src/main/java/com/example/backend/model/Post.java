@@ -1,6 +1,8 @@
 package com.example.backend.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -10,21 +12,33 @@ import java.util.List;
 import java.util.Map;
 
 @Document(collection = "posts")
+@CompoundIndex(name = "feed_cursor_idx", def = "{'sharedFrom': 1, 'createdAt': -1, '_id': -1}")
 public class Post {
+    // Media states while the upload pipeline is storing a post's files; null
+    // means the media is ready (posts created before the pipeline existed)
+    public static final String MEDIA_PENDING = "PENDING";
+    public static final String MEDIA_READY = "READY";
+    public static final String MEDIA_FAILED = "FAILED";
+
     @Id
     private String id;
     private String userId;
     private String content;
     private String videoUrl;
     private List<String> imageUrls = new ArrayList<>();
+    @Indexed
     private List<String> mediaIds = new ArrayList<>(); // Store GridFS IDs
     private Map<String, String> mediaTypes = new HashMap<>(); // Store media type for each mediaId
     private int likes = 0;
     private List<String> comments = new ArrayList<>();
+    // Comments and replies on the post, kept with $inc by CommentService and
+    // repaired by CommentCountReconciler; null until a post is first counted
+    private Integer commentCount;
     private LocalDateTime createdAt = LocalDateTime.now();
     private Map<String, Integer> reactionCounts = new HashMap<>();
     private String groupId;
     private String sharedFrom;
+    private String mediaStatus;
 
     public Post() {
     }
@@ -151,6 +165,22 @@ public class Post {
         this.sharedFrom = sharedFrom;
     }
 
+    public String getMediaStatus() {
+        return mediaStatus;
+    }
+
+    public void setMediaStatus(String mediaStatus) {
+        this.mediaStatus = mediaStatus;
+    }
+
+    public Integer getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(Integer commentCount) {
+        this.commentCount = commentCount;
+    }
+
     // Helper method to add or update a specific reaction count
     public void addReactionCount(String reactionType, int count) {
         this.reactionCounts.put(reactionType,
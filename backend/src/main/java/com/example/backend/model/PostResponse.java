@@ -1,5 +1,9 @@
 package com.example.backend.model;
 
+import com.example.backend.dto.MediaPreview;
+import com.example.backend.dto.ReactionSummary;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -18,6 +22,8 @@ public class PostResponse {
     private Map<String, String> mediaTypes = new HashMap<>();
     private int likes;
     private List<String> comments = new ArrayList<>();
+    // Null for posts the reconciler has not counted yet
+    private Integer commentCount;
     private LocalDateTime createdAt;
     private Map<String, Integer> reactionCounts;
     private String groupId;
@@ -33,6 +39,19 @@ public class PostResponse {
     private String originalContent;
     private List<String> originalImageUrls = new ArrayList<>();
     private String originalVideoUrl;
+    private String mediaStatus;
+    // Per entry of imageUrls: derivative width ("320") -> URL of that size
+    private List<Map<String, String>> imageSizes = new ArrayList<>();
+    private String userProfilePictureThumbnail;
+    // Per entry of imageUrls / originalImageUrls: dimensions and inline
+    // placeholder, null where the media has no recorded metadata
+    private List<MediaPreview> imagePreviews = new ArrayList<>();
+    private List<MediaPreview> originalImagePreviews = new ArrayList<>();
+    // Only set on a single post when requested with include=
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ReactionSummary reactionSummary;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<CommentResponse> firstComments;
 
     public PostResponse() {
     }
@@ -47,10 +66,12 @@ public class PostResponse {
         this.mediaTypes = post.getMediaTypes();
         this.likes = post.getLikes();
         this.comments = post.getComments();
+        this.commentCount = post.getCommentCount();
         this.createdAt = post.getCreatedAt();
         this.reactionCounts = post.getReactionCounts();
         this.groupId = post.getGroupId();
         this.sharedFrom = post.getSharedFrom();
+        this.mediaStatus = post.getMediaStatus();
     }
 
     // Getters and setters
@@ -261,4 +282,68 @@ public class PostResponse {
     public void setOriginalVideoUrl(String originalVideoUrl) {
         this.originalVideoUrl = originalVideoUrl;
     }
+
+    public String getMediaStatus() {
+        return mediaStatus;
+    }
+
+    public void setMediaStatus(String mediaStatus) {
+        this.mediaStatus = mediaStatus;
+    }
+
+    public Integer getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(Integer commentCount) {
+        this.commentCount = commentCount;
+    }
+
+    public ReactionSummary getReactionSummary() {
+        return reactionSummary;
+    }
+
+    public void setReactionSummary(ReactionSummary reactionSummary) {
+        this.reactionSummary = reactionSummary;
+    }
+
+    public List<CommentResponse> getFirstComments() {
+        return firstComments;
+    }
+
+    public void setFirstComments(List<CommentResponse> firstComments) {
+        this.firstComments = firstComments;
+    }
+
+    public List<Map<String, String>> getImageSizes() {
+        return imageSizes;
+    }
+
+    public void setImageSizes(List<Map<String, String>> imageSizes) {
+        this.imageSizes = imageSizes;
+    }
+
+    public String getUserProfilePictureThumbnail() {
+        return userProfilePictureThumbnail;
+    }
+
+    public void setUserProfilePictureThumbnail(String userProfilePictureThumbnail) {
+        this.userProfilePictureThumbnail = userProfilePictureThumbnail;
+    }
+
+    public List<MediaPreview> getImagePreviews() {
+        return imagePreviews;
+    }
+
+    public void setImagePreviews(List<MediaPreview> imagePreviews) {
+        this.imagePreviews = imagePreviews;
+    }
+
+    public List<MediaPreview> getOriginalImagePreviews() {
+        return originalImagePreviews;
+    }
+
+    public void setOriginalImagePreviews(List<MediaPreview> originalImagePreviews) {
+        this.originalImagePreviews = originalImagePreviews;
+    }
 }
\ No newline at end of file
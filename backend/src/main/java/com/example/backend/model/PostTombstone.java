@@ -0,0 +1,47 @@
+package com.example.backend.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a deleted post so feed delta requests can tell clients to drop it.
+ * Tombstones expire after {@link #RETENTION_DAYS}; a client that has not
+ * synced for longer is told to reload its feed instead.
+ */
+@Document(collection = "post_tombstones")
+public class PostTombstone {
+    public static final int RETENTION_DAYS = 7;
+
+    @Id
+    private String id; // ID of the deleted post
+    @Indexed(expireAfterSeconds = RETENTION_DAYS * 24 * 60 * 60)
+    private LocalDateTime deletedAt;
+
+    public PostTombstone() {
+    }
+
+    public PostTombstone(String postId) {
+        this.id = postId;
+        this.deletedAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
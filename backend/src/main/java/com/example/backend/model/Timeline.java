@@ -0,0 +1,64 @@
+package com.example.backend.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A precomputed feed: the newest post IDs of its audience, kept sorted by
+ * (createdAt, postId) descending and capped at the timeline capacity. Posts
+ * are pushed in when they are created, so reading a page never sorts the
+ * posts collection.
+ */
+@Document(collection = "timelines")
+public class Timeline {
+    // Every user sees the same home feed, so it is a single timeline
+    public static final String HOME = "home";
+
+    @Id
+    private String id;
+    private List<TimelineEntry> entries = new ArrayList<>();
+    // Set once the timeline has been filled from the posts collection; until
+    // then it may miss older posts and is not read
+    private boolean seeded;
+    private LocalDateTime seededAt;
+
+    public Timeline() {
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public List<TimelineEntry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<TimelineEntry> entries) {
+        this.entries = entries;
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public void setSeeded(boolean seeded) {
+        this.seeded = seeded;
+    }
+
+    public LocalDateTime getSeededAt() {
+        return seededAt;
+    }
+
+    public void setSeededAt(LocalDateTime seededAt) {
+        this.seededAt = seededAt;
+    }
+}
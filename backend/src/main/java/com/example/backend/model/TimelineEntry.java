@@ -0,0 +1,36 @@
+package com.example.backend.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One post on a {@link Timeline}, with the sort key the feed pages by.
+ */
+public class TimelineEntry {
+    private String postId;
+    private LocalDateTime createdAt;
+
+    public TimelineEntry() {
+    }
+
+    public TimelineEntry(String postId, LocalDateTime createdAt) {
+        this.postId = postId;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and setters
+    public String getPostId() {
+        return postId;
+    }
+
+    public void setPostId(String postId) {
+        this.postId = postId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.backend.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a resumable upload. Received bytes are written straight into
+ * GridFS chunks under the session ID, which becomes the media ID once the
+ * upload is complete; offset is how many bytes are safely stored.
+ */
+@Document(collection = "upload_sessions")
+public class UploadSession {
+    public static final String STATUS_OPEN = "OPEN";
+    public static final String STATUS_COMPLETE = "COMPLETE";
+
+    @Id
+    private String id; // GridFS file ID the chunks are written under
+    private String ownerId;
+    private String filename;
+    private String contentType;
+    private String type; // "video" or "image", as stored in GridFS metadata
+    private long length; // declared total size
+    private long offset;
+    private int chunkSize;
+    private String status = STATUS_OPEN;
+    private LocalDateTime createdAt = LocalDateTime.now();
+    // Pushed forward on every chunk; abandoned sessions are swept after this
+    @Indexed
+    private LocalDateTime expiresAt;
+
+    public UploadSession() {
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public void setLength(long length) {
+        this.length = length;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -15,4 +15,6 @@ public interface CommentRepository extends MongoRepository<Comment, String> {
     Page<Comment> findByPostIdOrderByCreatedAtDesc(String postId, Pageable pageable);
 
     List<Comment> findByPostId(String postId);
+
+    long countByPostId(String postId);
 }
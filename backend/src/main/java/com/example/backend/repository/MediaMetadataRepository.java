@@ -0,0 +1,12 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.MediaMetadata;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MediaMetadataRepository extends MongoRepository<MediaMetadata, String> {
+    List<MediaMetadata> findByContentId(String contentId);
+}
@@ -23,6 +23,12 @@ public class AdminService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserSummaryCache userSummaryCache;
+
+    @Autowired
+    private ScopeVersionService scopeVersionService;
+
     /**
      * Get all users
      */
@@ -135,6 +141,7 @@ public class AdminService {
         // Save and return updated user
         try {
             User savedUser = userRepository.save(existingUser);
+            userSummaryCache.invalidate(userId);
             logger.info("User updated successfully: " + userId);
             return sanitizeUserForResponse(savedUser);
         } catch (Exception e) {
@@ -158,6 +165,8 @@ public class AdminService {
         
         User user = userOpt.get();
         userRepository.delete(user);
+        userSummaryCache.invalidate(userId);
+        scopeVersionService.bump(List.of(ScopeVersionService.FEED, ScopeVersionService.user(userId)));
         logger.info("User deleted successfully: " + userId);
     }
     
@@ -177,6 +186,7 @@ public class AdminService {
         // Toggle status
         user.setEnabled(!user.isEnabled());
         User updatedUser = userRepository.save(user);
+        userSummaryCache.invalidate(userId);
         
         logger.info("User status toggled to: " + user.isEnabled());
         return sanitizeUserForResponse(updatedUser);
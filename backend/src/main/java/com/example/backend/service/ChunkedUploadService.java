@@ -0,0 +1,273 @@
+package com.example.backend.service;
+
+import com.example.backend.model.UploadSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Resumable uploads for videos: a session is started with the file's size,
+ * the bytes arrive in any number of requests that each continue at the stored
+ * offset, and the finished file is then attached to a post by its upload ID.
+ * A dropped connection only loses the chunk in flight.
+ *
+ * Each chunk is written directly as a GridFS chunk document in a staging
+ * bucket of its own, so nothing is buffered beyond one chunk and any instance
+ * can accept the next request. Completing the session writes the GridFS files
+ * document; the media pipeline later streams the file into the media store and
+ * deletes it here. Sessions that see no traffic for the configured TTL are
+ * swept together with their chunks.
+ */
+@Service
+public class ChunkedUploadService {
+
+    // GridFS chunk size of resumable uploads; request bodies should be a multiple of it
+    public static final int CHUNK_SIZE = 256 * 1024;
+
+    private static final String STAGING_BUCKET = "upload_staging";
+    private static final String FILES_COLLECTION = STAGING_BUCKET + ".files";
+    private static final String CHUNKS_COLLECTION = STAGING_BUCKET + ".chunks";
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final GridFSBucket stagingBucket;
+    private final VideoValidator videoValidator;
+    private final long sessionTtlMinutes;
+
+    public ChunkedUploadService(
+            MongoTemplate mongoTemplate,
+            VideoValidator videoValidator,
+            @Value("${upload.chunked.session-ttl-minutes:1440}") long sessionTtlMinutes) {
+        this.mongoTemplate = mongoTemplate;
+        this.stagingBucket = GridFSBuckets.create(mongoTemplate.getDb(), STAGING_BUCKET);
+        this.videoValidator = videoValidator;
+        this.sessionTtlMinutes = sessionTtlMinutes;
+    }
+
+    public UploadSession start(String ownerId, String filename, String contentType, long length) {
+        videoValidator.validate(contentType, length);
+
+        UploadSession session = new UploadSession();
+        session.setId(new ObjectId().toHexString());
+        session.setOwnerId(ownerId);
+        session.setFilename(filename != null && !filename.isEmpty() ? filename : "media_video");
+        session.setContentType(contentType);
+        session.setType("video");
+        session.setLength(length);
+        session.setChunkSize(CHUNK_SIZE);
+        session.setExpiresAt(nextExpiry());
+        return mongoTemplate.insert(session);
+    }
+
+    public Optional<UploadSession> find(String uploadId, String ownerId) {
+        if (uploadId == null || !ObjectId.isValid(uploadId)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(mongoTemplate.findOne(
+                new Query(Criteria.where("_id").is(uploadId).and("ownerId").is(ownerId)),
+                UploadSession.class));
+    }
+
+    /**
+     * Store body as the bytes of session starting at offset, one GridFS chunk
+     * at a time. Reading stops at the declared length. A trailing partial
+     * chunk that does not end the file is not stored and has to be sent again
+     * from the returned offset, as does anything after a dropped connection.
+     *
+     * @return the offset after the stored bytes
+     * @throws OffsetMismatchException if offset is not where the session
+     *                                 stands, e.g. after a retried request
+     */
+    public long append(UploadSession session, long offset, InputStream body) {
+        if (!UploadSession.STATUS_OPEN.equals(session.getStatus()) || offset != session.getOffset()) {
+            throw new OffsetMismatchException(session.getOffset());
+        }
+
+        ObjectId fileId = new ObjectId(session.getId());
+        MongoCollection<Document> chunks = mongoTemplate.getCollection(CHUNKS_COLLECTION);
+        int chunkSize = session.getChunkSize();
+        byte[] buffer = new byte[chunkSize];
+        long current = offset;
+        while (current < session.getLength()) {
+            int expected = (int) Math.min(chunkSize, session.getLength() - current);
+            int read;
+            try {
+                read = body.readNBytes(buffer, 0, expected);
+            } catch (IOException e) {
+                // Connection dropped mid-chunk: keep what is stored, the client resumes from there
+                System.err.println("Upload " + session.getId() + " interrupted at " + current + ": " + e.getMessage());
+                break;
+            }
+            if (read < expected) {
+                break;
+            }
+
+            // Upsert by (files_id, n) so a chunk resent after a lost response is not duplicated
+            int n = (int) (current / chunkSize);
+            Document chunk = new Document("files_id", fileId)
+                    .append("n", n)
+                    .append("data", new Binary(Arrays.copyOf(buffer, read)));
+            chunks.replaceOne(new Document("files_id", fileId).append("n", n), chunk,
+                    new ReplaceOptions().upsert(true));
+
+            UpdateResult result = mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(session.getId())
+                            .and("offset").is(current)
+                            .and("status").is(UploadSession.STATUS_OPEN)),
+                    new Update().set("offset", current + read).set("expiresAt", nextExpiry()),
+                    UploadSession.class);
+            if (result.getMatchedCount() == 0) {
+                // Another request for the same session got there first
+                throw new OffsetMismatchException(find(session.getId(), session.getOwnerId())
+                        .map(UploadSession::getOffset)
+                        .orElse(current));
+            }
+            current += read;
+        }
+        return current;
+    }
+
+    /**
+     * Turn a fully received session into a regular GridFS file. Completing an
+     * already complete session is a no-op, so the call can be retried.
+     */
+    public UploadSession complete(UploadSession session) {
+        if (UploadSession.STATUS_COMPLETE.equals(session.getStatus())) {
+            return session;
+        }
+        if (session.getOffset() != session.getLength()) {
+            throw new OffsetMismatchException(session.getOffset());
+        }
+
+        ObjectId fileId = new ObjectId(session.getId());
+        Document file = new Document("_id", fileId)
+                .append("length", session.getLength())
+                .append("chunkSize", session.getChunkSize())
+                .append("uploadDate", new Date())
+                .append("filename", session.getFilename())
+                .append("metadata", new Document("type", session.getType())
+                        .append("contentType", session.getContentType()));
+        mongoTemplate.getCollection(FILES_COLLECTION).replaceOne(new Document("_id", fileId), file,
+                new ReplaceOptions().upsert(true));
+
+        // The duration is only known once the whole file is here
+        try (GridFSDownloadStream in = stagingBucket.openDownloadStream(fileId)) {
+            videoValidator.validateDuration(in);
+        } catch (IllegalArgumentException e) {
+            abort(session);
+            throw e;
+        }
+
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(session.getId())),
+                new Update().set("status", UploadSession.STATUS_COMPLETE).set("expiresAt", nextExpiry()),
+                UploadSession.class);
+        session.setStatus(UploadSession.STATUS_COMPLETE);
+        return session;
+    }
+
+    /**
+     * Hand a completed upload over to a post. The session is removed in the
+     * same step, so an upload can only be attached once.
+     */
+    public MediaUploadPipeline.StagedMedia consume(String uploadId, String ownerId) {
+        UploadSession session = null;
+        if (uploadId != null && ObjectId.isValid(uploadId)) {
+            session = mongoTemplate.findAndRemove(
+                    new Query(Criteria.where("_id").is(uploadId)
+                            .and("ownerId").is(ownerId)
+                            .and("status").is(UploadSession.STATUS_COMPLETE)),
+                    UploadSession.class);
+        }
+        if (session == null) {
+            throw new IllegalArgumentException("Upload " + uploadId + " does not exist or is not complete");
+        }
+        return MediaUploadPipeline.StagedMedia.chunkedUpload(session.getId(), session.getType(),
+                session.getContentType(), session.getFilename(), session.getLength());
+    }
+
+    /**
+     * Bytes of a consumed upload, for the media pipeline to store.
+     */
+    public InputStream openStaged(String uploadId) {
+        return stagingBucket.openDownloadStream(new ObjectId(uploadId));
+    }
+
+    public void deleteStaged(String uploadId) {
+        deleteBytes(uploadId);
+    }
+
+    public void abort(UploadSession session) {
+        UploadSession removed = mongoTemplate.findAndRemove(
+                new Query(Criteria.where("_id").is(session.getId())), UploadSession.class);
+        if (removed != null) {
+            deleteBytes(removed.getId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${upload.chunked.sweep-interval-ms:600000}")
+    public void sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Query expired = new Query(Criteria.where("expiresAt").lt(now)).limit(SWEEP_BATCH_SIZE);
+        for (UploadSession session : mongoTemplate.find(expired, UploadSession.class)) {
+            try {
+                // Re-check the expiry so a session that just received a chunk survives
+                UploadSession removed = mongoTemplate.findAndRemove(
+                        new Query(Criteria.where("_id").is(session.getId()).and("expiresAt").lt(now)),
+                        UploadSession.class);
+                if (removed != null) {
+                    deleteBytes(removed.getId());
+                }
+            } catch (Exception e) {
+                System.err.println("Error removing expired upload " + session.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void deleteBytes(String uploadId) {
+        ObjectId fileId = new ObjectId(uploadId);
+        mongoTemplate.getCollection(CHUNKS_COLLECTION).deleteMany(new Document("files_id", fileId));
+        mongoTemplate.getCollection(FILES_COLLECTION).deleteOne(new Document("_id", fileId));
+    }
+
+    private LocalDateTime nextExpiry() {
+        return LocalDateTime.now().plusMinutes(sessionTtlMinutes);
+    }
+
+    /**
+     * A chunk was sent for an offset other than the one the session stands
+     * at; the client should continue from {@link #getCurrentOffset()}.
+     */
+    public static class OffsetMismatchException extends IllegalStateException {
+        private final long currentOffset;
+
+        public OffsetMismatchException(long currentOffset) {
+            super("Upload is at offset " + currentOffset);
+            this.currentOffset = currentOffset;
+        }
+
+        public long getCurrentOffset() {
+            return currentOffset;
+        }
+    }
+}
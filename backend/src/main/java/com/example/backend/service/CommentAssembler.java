@@ -0,0 +1,123 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserSummary;
+import com.example.backend.model.Comment;
+import com.example.backend.model.CommentReaction;
+import com.example.backend.model.CommentResponse;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a page of comments into responses with a fixed number of queries: at
+ * most one {@code $in} for the authors that are not already in the
+ * {@link UserSummaryCache}, one {@code $group} over the comment reactions for
+ * the like counts of every comment on the page, and one {@code $in} for the
+ * viewer's own reactions.
+ */
+@Service
+public class CommentAssembler {
+
+    private static final String LIKE = "like";
+
+    private final MongoTemplate mongoTemplate;
+    private final UserSummaryCache userSummaryCache;
+
+    @Autowired
+    public CommentAssembler(MongoTemplate mongoTemplate, UserSummaryCache userSummaryCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.userSummaryCache = userSummaryCache;
+    }
+
+    public List<CommentResponse> assemble(List<Comment> comments, String currentUserId) {
+        if (comments == null || comments.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> commentIds = new LinkedHashSet<>();
+        Set<String> userIds = new LinkedHashSet<>();
+        for (Comment comment : comments) {
+            commentIds.add(comment.getId());
+            if (comment.getUserId() != null) {
+                userIds.add(comment.getUserId());
+            }
+        }
+        Map<String, UserSummary> users = loadUsers(userIds);
+        Map<String, Integer> likeCounts = loadLikeCounts(commentIds);
+        Set<String> liked = currentUserId != null ? loadReacted(commentIds, currentUserId) : Collections.emptySet();
+
+        List<CommentResponse> responses = new ArrayList<>(comments.size());
+        for (Comment comment : comments) {
+            CommentResponse response = new CommentResponse(comment);
+            UserSummary author = users.get(comment.getUserId());
+            if (author != null) {
+                response.setUserName(author.getDisplayName());
+                response.setUserProfilePicture(author.getAvatarUrl());
+            } else {
+                response.setUserName("Deleted User");
+                response.setUserProfilePicture(null);
+            }
+            response.setLikeCount(likeCounts.getOrDefault(comment.getId(), 0));
+            response.setUserLiked(liked.contains(comment.getId()));
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    public CommentResponse assemble(Comment comment, String currentUserId) {
+        return assemble(Collections.singletonList(comment), currentUserId).get(0);
+    }
+
+    private Map<String, UserSummary> loadUsers(Set<String> userIds) {
+        try {
+            return userSummaryCache.getAll(userIds);
+        } catch (Exception e) {
+            // Authors render as "Deleted User" rather than failing the page
+            System.err.println("Error fetching comment authors: " + e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    private Map<String, Integer> loadLikeCounts(Set<String> commentIds) {
+        Map<String, Integer> counts = new HashMap<>();
+        try {
+            Aggregation aggregation = Aggregation.newAggregation(
+                    Aggregation.match(Criteria.where("commentId").in(commentIds).and("reactionType").is(LIKE)),
+                    Aggregation.group("commentId").count().as("count"));
+            for (Document row : mongoTemplate.aggregate(aggregation, CommentReaction.class, Document.class)) {
+                counts.put(row.getString("_id"), row.get("count", Number.class).intValue());
+            }
+        } catch (Exception e) {
+            System.err.println("Error counting comment reactions: " + e.getMessage());
+        }
+        return counts;
+    }
+
+    // Any reaction counts as the viewer having liked the comment, as the toggle stores it
+    private Set<String> loadReacted(Set<String> commentIds, String userId) {
+        Set<String> reacted = new HashSet<>();
+        try {
+            Query query = new Query(Criteria.where("commentId").in(commentIds).and("userId").is(userId));
+            query.fields().include("commentId");
+            for (CommentReaction reaction : mongoTemplate.find(query, CommentReaction.class)) {
+                reacted.add(reaction.getCommentId());
+            }
+        } catch (Exception e) {
+            System.err.println("Error fetching reactions of user " + userId + ": " + e.getMessage());
+        }
+        return reacted;
+    }
+}
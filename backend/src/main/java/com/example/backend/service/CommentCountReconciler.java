@@ -0,0 +1,149 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Comment;
+import com.example.backend.model.Post;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Repairs drift in {@link Post#getCommentCount()}. The counter is kept with
+ * $inc as comments are written, which misses increments that failed, posts
+ * saved whole from a copy read before a comment was added, and posts from
+ * before the counter existed.
+ *
+ * Each run walks the posts in ID order, a batch at a time, and counts the
+ * comments of a whole batch with one $group. A counter is only replaced if
+ * it still holds the value that was compared, so a comment written while the
+ * batch is counted is not lost; the post is checked again on the next pass.
+ * The position is persisted like the media collector's.
+ */
+@Service
+public class CommentCountReconciler {
+
+    private static final String STATE_COLLECTION = "comment_count_state";
+    private static final String STATE_ID = "posts";
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder completedPasses = new LongAdder();
+    private final LongAdder postsScanned = new LongAdder();
+    private final LongAdder countsRepaired = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile LocalDateTime lastRunAt;
+
+    public CommentCountReconciler(
+            MongoTemplate mongoTemplate,
+            @Value("${comments.reconcile.batch-size:500}") int batchSize,
+            @Value("${comments.reconcile.max-batches-per-run:20}") int maxBatchesPerRun) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${comments.reconcile.interval-ms:3600000}",
+            initialDelayString = "${comments.reconcile.initial-delay-ms:60000}")
+    public void reconcile() {
+        runs.increment();
+        try {
+            String after = loadPosition();
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+                if (after != null) {
+                    query.addCriteria(Criteria.where("_id").gt(after));
+                }
+                query.fields().include("commentCount");
+                List<Post> page = mongoTemplate.find(query, Post.class);
+                if (page.isEmpty()) {
+                    // End of the posts: the next run starts a new pass from the beginning
+                    completedPasses.increment();
+                    savePosition(null);
+                    return;
+                }
+
+                reconcile(page);
+                after = page.get(page.size() - 1).getId();
+                savePosition(after);
+            }
+        } catch (Exception e) {
+            failures.increment();
+            System.err.println("Error reconciling comment counts: " + e.getMessage());
+        } finally {
+            lastRunAt = LocalDateTime.now();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("runCount", runs.sum());
+        result.put("completedPassCount", completedPasses.sum());
+        result.put("postsScanned", postsScanned.sum());
+        result.put("countsRepaired", countsRepaired.sum());
+        result.put("failureCount", failures.sum());
+        result.put("lastRunAt", lastRunAt);
+        return result;
+    }
+
+    private void reconcile(List<Post> page) {
+        List<String> postIds = new ArrayList<>(page.size());
+        for (Post post : page) {
+            postIds.add(post.getId());
+        }
+        postsScanned.add(postIds.size());
+
+        Map<String, Integer> actual = new HashMap<>();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("postId").in(postIds)),
+                Aggregation.group("postId").count().as("count"));
+        for (Document row : mongoTemplate.aggregate(aggregation, Comment.class, Document.class)) {
+            actual.put(row.getString("_id"), row.get("count", Number.class).intValue());
+        }
+
+        for (Post post : page) {
+            int count = actual.getOrDefault(post.getId(), 0);
+            if (post.getCommentCount() != null && post.getCommentCount() == count) {
+                continue;
+            }
+            boolean repaired = mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(post.getId()).and("commentCount").is(post.getCommentCount())),
+                    new Update().set("commentCount", count),
+                    Post.class).getModifiedCount() > 0;
+            if (repaired) {
+                countsRepaired.increment();
+            }
+        }
+    }
+
+    private String loadPosition() {
+        Document state = mongoTemplate.getCollection(STATE_COLLECTION)
+                .find(new Document("_id", STATE_ID))
+                .first();
+        return state != null ? state.getString("after") : null;
+    }
+
+    private void savePosition(String after) {
+        mongoTemplate.getCollection(STATE_COLLECTION).replaceOne(
+                new Document("_id", STATE_ID),
+                new Document("_id", STATE_ID).append("after", after).append("updatedAt", new Date()),
+                new ReplaceOptions().upsert(true));
+    }
+}
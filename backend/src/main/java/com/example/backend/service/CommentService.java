@@ -1,28 +1,36 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.CommentPage;
+import com.example.backend.dto.PageCursor;
+import com.example.backend.dto.UserSummary;
 import com.example.backend.model.Comment;
 import com.example.backend.model.CommentReaction;
 import com.example.backend.model.CommentResponse;
 import com.example.backend.model.Post;
-import com.example.backend.model.User;
 import com.example.backend.repository.CommentReactionRepository;
 import com.example.backend.repository.CommentRepository;
 import com.example.backend.repository.PostRepository;
 import com.example.backend.repository.UserRepository;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class CommentService {
+    // Hard cap on comments per response, whatever page size is asked for
+    public static final int MAX_COMMENT_PAGE_SIZE = 50;
+
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
@@ -31,6 +39,21 @@ public class CommentService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private UserSummaryCache userSummaryCache;
+
+    @Autowired
+    private ScopeVersionService scopeVersionService;
+
+    @Autowired
+    private CommentAssembler commentAssembler;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CommentThreadService commentThreadService;
+
     @Autowired
     public CommentService(CommentRepository commentRepository,
             PostRepository postRepository,
@@ -43,35 +66,7 @@ public class CommentService {
     }
 
     private CommentResponse convertToCommentResponse(Comment comment, String currentUserId) {
-        CommentResponse response = new CommentResponse(comment);
-
-        try {
-            userRepository.findById(comment.getUserId()).ifPresent(user -> {
-                response.setUserName(user.getFirstName() + " " + user.getLastName());
-                response.setUserProfilePicture(user.getProfilePicture());
-            });
-        } catch (Exception e) {
-            // If user not found, use default values
-            response.setUserName("Deleted User");
-            response.setUserProfilePicture(null);
-        }
-
-        // Add reaction information
-        try {
-            int likeCount = commentReactionRepository.countByCommentIdAndReactionType(comment.getId(), "like");
-            response.setLikeCount(likeCount);
-
-            // Check if current user has liked this comment
-            if (currentUserId != null) {
-                boolean userLiked = commentReactionRepository.findByCommentIdAndUserId(comment.getId(), currentUserId)
-                        .isPresent();
-                response.setUserLiked(userLiked);
-            }
-        } catch (Exception e) {
-            System.err.println("Error getting reaction data for comment " + comment.getId() + ": " + e.getMessage());
-        }
-
-        return response;
+        return commentAssembler.assemble(comment, currentUserId);
     }
 
     private CommentResponse convertToCommentResponse(Comment comment) {
@@ -89,17 +84,30 @@ public class CommentService {
         comment.setContent(content);
         comment.setParentCommentId(parentCommentId);
 
+        Comment parentComment = null;
+        if (parentCommentId != null) {
+            parentComment = commentRepository.findById(parentCommentId)
+                    .orElseThrow(() -> new IllegalArgumentException("Parent comment not found"));
+            // The reply's path is built from the parent's, so it must be in the same post's thread
+            if (!postId.equals(parentComment.getPostId())) {
+                throw new IllegalArgumentException("Parent comment belongs to a different post");
+            }
+        }
+        commentThreadService.place(comment, parentComment);
+
         // Set mentioned users if provided
         if (mentions != null && !mentions.isEmpty()) {
             comment.setMentions(mentions);
         }
 
         Comment savedComment = commentRepository.save(comment);
+        adjustCommentCount(postId, 1);
+        scopeVersionService.bump(post);
 
         // Get commenter name
-        User commenter = userRepository.findById(userId).orElse(null);
-        String commenterName = commenter != null ? (commenter.getFirstName() + " " + commenter.getLastName())
-                : "Someone";
+        String commenterName = userSummaryCache.get(userId)
+                .map(UserSummary::getDisplayName)
+                .orElse("Someone");
 
         // Create notification for post owner if it's a top-level comment
         if (parentCommentId == null) {
@@ -111,9 +119,6 @@ public class CommentService {
                     userId);
         } else {
             // Create notification for parent comment owner
-            Comment parentComment = commentRepository.findById(parentCommentId)
-                    .orElseThrow(() -> new IllegalArgumentException("Parent comment not found"));
-
             notificationService.createNotification(
                     parentComment.getUserId(),
                     "REPLY",
@@ -171,14 +176,9 @@ public class CommentService {
 
         // If user is admin, allow deletion regardless of ownership
         if (isAdmin) {
-            // Remove comment ID from post's comments list if post still exists
-            postRepository.findById(comment.getPostId()).ifPresent(post -> {
-                post.getComments().remove(commentId);
-                postRepository.save(post);
-            });
-
-            // Delete the comment
-            commentRepository.deleteById(commentId);
+            Optional<Post> post = postRepository.findById(comment.getPostId());
+            deleteThread(comment);
+            post.ifPresent(scopeVersionService::bump);
             return;
         }
 
@@ -190,95 +190,108 @@ public class CommentService {
             throw new IllegalArgumentException("You don't have permission to delete this comment");
         }
 
-        // Remove comment ID from post's comments list
-        post.getComments().remove(commentId);
-        postRepository.save(post);
-
-        // Delete the comment
-        commentRepository.deleteById(commentId);
+        deleteThread(comment);
+        scopeVersionService.bump(post);
     }
 
-    // Keep the original method for backward compatibility
-    public void deleteComment(String commentId, String userId) {
-        deleteComment(commentId, userId, false);
-    }
-
-    public List<CommentResponse> getPostComments(String postId) {
-        try {
-            return commentRepository.findByPostIdOrderByCreatedAtAsc(postId)
-                    .stream()
-                    .map(this::convertToCommentResponse)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            // Log error and return empty list
-            System.err.println("Error fetching comments for post " + postId + ": " + e.getMessage());
-            return Collections.emptyList();
+    /**
+     * Delete comment together with every reply below it, and take them off
+     * the post's comment count. The post is updated in place, so a concurrent
+     * comment on it is not overwritten.
+     */
+    private void deleteThread(Comment comment) {
+        List<String> removedIds = new ArrayList<>();
+        removedIds.add(comment.getId());
+        List<String> parentIds = List.of(comment.getId());
+        while (!parentIds.isEmpty()) {
+            Query replies = new Query(Criteria.where("parentCommentId").in(parentIds));
+            replies.fields().include("_id");
+            List<String> replyIds = new ArrayList<>();
+            for (Comment reply : mongoTemplate.find(replies, Comment.class)) {
+                replyIds.add(reply.getId());
+            }
+            removedIds.addAll(replyIds);
+            parentIds = replyIds;
         }
+
+        commentRepository.deleteAllById(removedIds);
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(comment.getPostId())),
+                new Update().pullAll("comments", removedIds.toArray()),
+                Post.class);
+        adjustCommentCount(comment.getPostId(), -removedIds.size());
     }
 
-    public Page<CommentResponse> getPostComments(String postId, PageRequest pageRequest) {
+    // Posts that have not been counted yet are left to the reconciler, which
+    // would otherwise see a count started from zero as correct
+    private void adjustCommentCount(String postId, int delta) {
         try {
-            Page<Comment> commentPage = commentRepository.findByPostIdOrderByCreatedAtDesc(postId, pageRequest);
-            List<CommentResponse> commentResponses = commentPage.getContent().stream()
-                    .map(this::convertToCommentResponse)
-                    .collect(Collectors.toList());
-
-            return new PageImpl<>(
-                    commentResponses,
-                    pageRequest,
-                    commentPage.getTotalElements());
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(postId).and("commentCount").ne(null)),
+                    new Update().inc("commentCount", delta),
+                    Post.class);
         } catch (Exception e) {
-            // Log error and return empty page
-            System.err.println("Error fetching paged comments for post " + postId + ": " + e.getMessage());
-            return new PageImpl<>(Collections.emptyList(), pageRequest, 0);
+            System.err.println("Error updating comment count of post " + postId + ": " + e.getMessage());
         }
     }
 
-    public List<CommentResponse> getPostComments(String postId, int limit) {
-        try {
-            // Replace findByPostId with an existing repository method
-            List<Comment> allComments = commentRepository.findByPostIdOrderByCreatedAtDesc(
-                    postId,
-                    PageRequest.of(0, Math.max(limit, 1000)) // Ensure we get enough comments for hierarchical
-                                                             // structuring
-            ).getContent();
-
-            // Convert to response objects
-            return allComments.stream()
-                    .map(this::convertToCommentResponse)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            // Log error and return empty list
-            System.err.println("Error fetching comments for post " + postId + ": " + e.getMessage());
-            e.printStackTrace(); // Add stack trace for better debugging
-            return Collections.emptyList();
-        }
+    // Keep the original method for backward compatibility
+    public void deleteComment(String commentId, String userId) {
+        deleteComment(commentId, userId, false);
     }
 
-    public List<CommentResponse> getPostComments(String postId, String currentUserId) {
+    /**
+     * Get one page of a post's comments, newest first. Pages continue after
+     * the (createdAt, _id) of the previous page's last comment, so every page
+     * is one bounded range read on the post's index however deep the client
+     * has scrolled.
+     *
+     * @param cursor token from the previous page's nextCursor, or null for the
+     *               first page
+     * @param limit  requested page size, clamped to MAX_COMMENT_PAGE_SIZE
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CommentPage getCommentPage(String postId, String cursor, int limit, String currentUserId) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_COMMENT_PAGE_SIZE);
+        PageCursor after = cursor != null && !cursor.isEmpty() ? PageCursor.decode(cursor) : null;
         try {
-            return commentRepository.findByPostIdOrderByCreatedAtAsc(postId)
-                    .stream()
-                    .map(comment -> convertToCommentResponse(comment, currentUserId))
-                    .collect(Collectors.toList());
+            Query query = new Query(Criteria.where("postId").is(postId));
+            if (after != null) {
+                query.addCriteria(new Criteria().orOperator(
+                        Criteria.where("createdAt").lt(after.getCreatedAt()),
+                        Criteria.where("createdAt").is(after.getCreatedAt())
+                                .and("_id").lt(new ObjectId(after.getId()))));
+            }
+            // Fetch one extra row to learn whether another page exists
+            query.with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"));
+            query.limit(pageSize + 1);
+
+            List<Comment> comments = mongoTemplate.find(query, Comment.class);
+            String nextCursor = null;
+            if (comments.size() > pageSize) {
+                comments = comments.subList(0, pageSize);
+                Comment last = comments.get(pageSize - 1);
+                nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+            }
+            return new CommentPage(commentAssembler.assemble(comments, currentUserId), nextCursor);
         } catch (Exception e) {
             System.err.println("Error fetching comments for post " + postId + ": " + e.getMessage());
-            return Collections.emptyList();
+            return new CommentPage(new ArrayList<>(), null);
         }
     }
 
-    public List<CommentResponse> getPostComments(String postId, int limit, String currentUserId) {
+    /**
+     * The oldest top-level comments of a post, for showing a few under the
+     * post without loading the thread.
+     */
+    public List<CommentResponse> getFirstComments(String postId, int limit, String currentUserId) {
         try {
-            List<Comment> allComments = commentRepository.findByPostIdOrderByCreatedAtDesc(
-                    postId,
-                    PageRequest.of(0, Math.max(limit, 1000))).getContent();
-
-            return allComments.stream()
-                    .map(comment -> convertToCommentResponse(comment, currentUserId))
-                    .collect(Collectors.toList());
+            Query query = new Query(Criteria.where("postId").is(postId).and("parentCommentId").is(null))
+                    .with(Sort.by(Sort.Direction.ASC, "createdAt", "_id"))
+                    .limit(limit);
+            return commentAssembler.assemble(mongoTemplate.find(query, Comment.class), currentUserId);
         } catch (Exception e) {
-            System.err.println("Error fetching comments for post " + postId + ": " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("Error fetching first comments for post " + postId + ": " + e.getMessage());
             return Collections.emptyList();
         }
     }
@@ -307,8 +320,14 @@ public class CommentService {
 
     public long getCommentCount(String postId) {
         try {
-            List<Comment> comments = commentRepository.findByPostId(postId);
-            return comments.size();
+            Query query = new Query(Criteria.where("_id").is(postId));
+            query.fields().include("commentCount");
+            Post post = mongoTemplate.findOne(query, Post.class);
+            if (post != null && post.getCommentCount() != null) {
+                return Math.max(0, post.getCommentCount());
+            }
+            // Not counted yet: count on the server until the reconciler gets to it
+            return commentRepository.countByPostId(postId);
         } catch (Exception e) {
             System.err.println("Error getting comment count: " + e.getMessage());
             return 0;
@@ -0,0 +1,335 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.CommentPage;
+import com.example.backend.dto.PageCursor;
+import com.example.backend.model.Comment;
+import com.example.backend.model.CommentResponse;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Threaded comment loading on materialized paths. Every comment stores the
+ * path of IDs from its thread's root down to itself, so a thread sorted by
+ * path is in reply order and the replies below any comment are one range of
+ * paths on the (rootId, path) index.
+ *
+ * A listing is one aggregation: the newest root comments of a post, each
+ * joined with the first replies of its thread. Further replies of a subtree
+ * are read a page at a time after the path of the last one shown, so neither
+ * query nor payload grows with the size of a thread.
+ */
+@Service
+public class CommentThreadService {
+
+    public static final int MAX_THREADS = 50;
+    public static final int MAX_REPLIES = 50;
+
+    private static final String SEPARATOR = "/";
+    // Sorts right after the separator, so [path + "/", path + "0") is exactly
+    // the subtree below path
+    private static final String AFTER_SEPARATOR = "0";
+    private static final Pattern PATH = Pattern.compile("[0-9a-f]{24}(/[0-9a-f]{24})*");
+
+    private final MongoTemplate mongoTemplate;
+    private final CommentAssembler commentAssembler;
+
+    public CommentThreadService(MongoTemplate mongoTemplate, CommentAssembler commentAssembler) {
+        this.mongoTemplate = mongoTemplate;
+        this.commentAssembler = commentAssembler;
+    }
+
+    /**
+     * Give a new comment its ID and its place below parent, or make it the
+     * root of a new thread if parent is null. Called before the comment is
+     * first saved.
+     */
+    public void place(Comment comment, Comment parent) {
+        if (comment.getId() == null) {
+            comment.setId(new ObjectId().toHexString());
+        }
+        if (parent != null && parent.getPath() == null) {
+            backfill(parent.getPostId());
+            Comment placed = mongoTemplate.findById(parent.getId(), Comment.class);
+            parent = placed != null && placed.getPath() != null ? placed : null;
+        }
+        if (parent == null) {
+            comment.setRootId(comment.getId());
+            comment.setPath(comment.getId());
+            comment.setDepth(0);
+        } else {
+            comment.setRootId(parent.getRootId());
+            comment.setPath(parent.getPath() + SEPARATOR + comment.getId());
+            comment.setDepth(parent.getDepth() + 1);
+        }
+    }
+
+    /**
+     * One page of a post's threads: root comments newest first, each with the
+     * first replies of its thread in reply order and a cursor for the rest.
+     * Pages continue after the (createdAt, _id) of the last root shown.
+     *
+     * @param cursor token from the previous page's nextCursor, or null for the
+     *               first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CommentPage getThreads(String postId, String cursor, int threads, int replies, String currentUserId) {
+        threads = Math.max(1, Math.min(threads, MAX_THREADS));
+        replies = Math.max(0, Math.min(replies, MAX_REPLIES));
+        PageCursor after = cursor != null && !cursor.isEmpty() ? PageCursor.decode(cursor) : null;
+
+        // Read one extra root to learn whether another page exists
+        Map<Comment, List<Comment>> page = readThreads(postId, after, threads + 1, replies + 1);
+        for (Comment root : page.keySet()) {
+            if (root.getPath() == null) {
+                // Comments from before paths were kept; place them once and read again
+                backfill(postId);
+                page = readThreads(postId, after, threads + 1, replies + 1);
+                break;
+            }
+        }
+
+        String nextCursor = null;
+        if (page.size() > threads) {
+            Map<Comment, List<Comment>> shownThreads = new LinkedHashMap<>();
+            Comment last = null;
+            for (Map.Entry<Comment, List<Comment>> thread : page.entrySet()) {
+                if (shownThreads.size() == threads) {
+                    break;
+                }
+                shownThreads.put(thread.getKey(), thread.getValue());
+                last = thread.getKey();
+            }
+            page = shownThreads;
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        List<Comment> comments = new ArrayList<>();
+        for (Map.Entry<Comment, List<Comment>> thread : page.entrySet()) {
+            comments.add(thread.getKey());
+            comments.addAll(thread.getValue().subList(0, Math.min(replies, thread.getValue().size())));
+        }
+        Map<String, CommentResponse> responses = new HashMap<>();
+        for (CommentResponse response : commentAssembler.assemble(comments, currentUserId)) {
+            responses.put(response.getId(), response);
+        }
+
+        List<CommentResponse> result = new ArrayList<>(page.size());
+        for (Map.Entry<Comment, List<Comment>> thread : page.entrySet()) {
+            List<Comment> threadReplies = thread.getValue();
+            CommentResponse root = responses.get(thread.getKey().getId());
+            List<CommentResponse> shown = new ArrayList<>();
+            for (Comment reply : threadReplies.subList(0, Math.min(replies, threadReplies.size()))) {
+                shown.add(responses.get(reply.getId()));
+            }
+            root.setReplies(shown);
+            if (threadReplies.size() > replies) {
+                // With no replies shown, the root's own path starts its subtree
+                Comment last = replies > 0 ? threadReplies.get(replies - 1) : thread.getKey();
+                root.setRepliesCursor(encodeCursor(last.getPath()));
+            }
+            result.add(root);
+        }
+        return new CommentPage(result, nextCursor);
+    }
+
+    /**
+     * The next replies below a comment, at any depth, in reply order.
+     *
+     * @param after cursor from a previous page, or null for the first page
+     * @throws IllegalArgumentException if the comment does not exist or the
+     *                                  cursor is malformed or belongs to
+     *                                  another subtree
+     */
+    public CommentPage getReplies(String commentId, String after, int limit, String currentUserId) {
+        limit = Math.max(1, Math.min(limit, MAX_REPLIES));
+        Comment parent = mongoTemplate.findById(commentId, Comment.class);
+        if (parent == null) {
+            throw new IllegalArgumentException("Comment not found");
+        }
+        if (parent.getPath() == null) {
+            backfill(parent.getPostId());
+            parent = mongoTemplate.findById(commentId, Comment.class);
+            if (parent == null || parent.getPath() == null) {
+                return new CommentPage(new ArrayList<>(), null);
+            }
+        }
+
+        String prefix = subtreeStart(parent.getPath());
+        Criteria path = Criteria.where("path").lt(subtreeEnd(parent.getPath()));
+        if (after != null && !after.isEmpty()) {
+            String afterPath = decodeCursor(after);
+            // A comment's own path is the cursor for a thread listed without replies
+            if (!afterPath.equals(parent.getPath()) && !afterPath.startsWith(prefix)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            path = path.gt(afterPath);
+        } else {
+            path = path.gte(prefix);
+        }
+
+        Query query = new Query(Criteria.where("rootId").is(parent.getRootId()))
+                .addCriteria(path)
+                .with(Sort.by(Sort.Direction.ASC, "path"))
+                .limit(limit + 1);
+        List<Comment> replies = mongoTemplate.find(query, Comment.class);
+
+        String nextCursor = null;
+        if (replies.size() > limit) {
+            replies = replies.subList(0, limit);
+            nextCursor = encodeCursor(replies.get(limit - 1).getPath());
+        }
+        return new CommentPage(commentAssembler.assemble(replies, currentUserId), nextCursor);
+    }
+
+    /**
+     * Root comments of a post older than after, newest first, each with the
+     * first replies of its thread, in one aggregation.
+     */
+    private Map<Comment, List<Comment>> readThreads(String postId, PageCursor after, int threads, int replies) {
+        Document ownThread = new Document("$and", List.of(
+                new Document("$eq", List.of("$rootId", "$$rootId")),
+                new Document("$gt", List.of("$depth", 0))));
+        Document lookup = new Document("from", mongoTemplate.getCollectionName(Comment.class))
+                .append("let", new Document("rootId", new Document("$toString", "$_id")))
+                .append("pipeline", List.of(
+                        new Document("$match", new Document("$expr", ownThread)),
+                        new Document("$sort", new Document("path", 1)),
+                        new Document("$limit", replies)))
+                .append("as", "replies");
+
+        Document roots = new Document("postId", postId).append("parentCommentId", null);
+        if (after != null) {
+            Date createdAt = Date.from(after.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant());
+            roots.append("$or", List.of(
+                    new Document("createdAt", new Document("$lt", createdAt)),
+                    new Document("createdAt", createdAt)
+                            .append("_id", new Document("$lt", new ObjectId(after.getId())))));
+        }
+
+        List<Document> pipeline = List.of(
+                new Document("$match", roots),
+                new Document("$sort", new Document("createdAt", -1).append("_id", -1)),
+                new Document("$limit", threads),
+                new Document("$lookup", lookup));
+
+        Map<Comment, List<Comment>> page = new LinkedHashMap<>();
+        for (Document row : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Comment.class))
+                .aggregate(pipeline)) {
+            Comment root = mongoTemplate.getConverter().read(Comment.class, row);
+            List<Comment> threadReplies = new ArrayList<>();
+            for (Document reply : row.getList("replies", Document.class)) {
+                threadReplies.add(mongoTemplate.getConverter().read(Comment.class, reply));
+            }
+            page.put(root, threadReplies);
+        }
+        return page;
+    }
+
+    /**
+     * Place every comment of a post written before paths were kept. Runs once
+     * per post, the first time one of its threads is read or replied to; only
+     * comments still without a path are written, so concurrent runs agree.
+     */
+    private void backfill(String postId) {
+        Query query = new Query(Criteria.where("postId").is(postId));
+        query.fields().include("parentCommentId", "rootId", "path", "depth");
+        Map<String, Comment> byId = new HashMap<>();
+        for (Comment comment : mongoTemplate.find(query, Comment.class)) {
+            byId.put(comment.getId(), comment);
+        }
+
+        List<Comment> unplaced = new ArrayList<>();
+        for (Comment comment : byId.values()) {
+            if (comment.getPath() == null) {
+                unplaced.add(comment);
+            }
+        }
+        if (unplaced.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Comment.class);
+        for (Comment comment : unplaced) {
+            resolve(comment, byId, new HashSet<>());
+            bulk.updateOne(
+                    new Query(Criteria.where("_id").is(comment.getId()).and("path").is(null)),
+                    new Update().set("rootId", comment.getRootId())
+                            .set("path", comment.getPath())
+                            .set("depth", comment.getDepth()));
+        }
+        bulk.execute();
+    }
+
+    // Place comment after its ancestors. A reply whose parent is gone starts
+    // a thread of its own, but keeps its parentCommentId and so stays out of
+    // listings as before.
+    private void resolve(Comment comment, Map<String, Comment> byId, Set<String> visiting) {
+        if (comment.getPath() != null) {
+            return;
+        }
+        Comment parent = comment.getParentCommentId() != null ? byId.get(comment.getParentCommentId()) : null;
+        if (parent != null && visiting.add(comment.getId())) {
+            resolve(parent, byId, visiting);
+        }
+        if (comment.getPath() != null) {
+            // Placed while resolving a cycle through it
+            return;
+        }
+        if (parent != null && parent.getPath() != null) {
+            comment.setRootId(parent.getRootId());
+            comment.setPath(parent.getPath() + SEPARATOR + comment.getId());
+            comment.setDepth(parent.getDepth() + 1);
+        } else {
+            comment.setRootId(comment.getId());
+            comment.setPath(comment.getId());
+            comment.setDepth(0);
+        }
+    }
+
+    // Lowest path below path; every path of its subtree sorts at or after it
+    static String subtreeStart(String path) {
+        return path + SEPARATOR;
+    }
+
+    // Exclusive upper bound of the subtree below path
+    static String subtreeEnd(String path) {
+        return path + AFTER_SEPARATOR;
+    }
+
+    static String encodeCursor(String path) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(path.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeCursor(String cursor) {
+        String path;
+        try {
+            path = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!PATH.matcher(path).matches()) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return path;
+    }
+}
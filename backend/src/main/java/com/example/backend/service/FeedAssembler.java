@@ -0,0 +1,246 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.MediaPreview;
+import com.example.backend.dto.UserSummary;
+import com.example.backend.model.MediaMetadata;
+import com.example.backend.model.Post;
+import com.example.backend.model.PostResponse;
+import com.example.backend.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a page of posts into responses with a fixed number of queries: one
+ * {@code $in} for the original posts of shares, at most one {@code $in} for
+ * the authors that are not already in the {@link UserSummaryCache} and at most
+ * one for image metadata missing from the media metadata cache, joined in
+ * memory.
+ */
+@Service
+public class FeedAssembler {
+
+    private final PostRepository postRepository;
+    private final UserSummaryCache userSummaryCache;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final MediaMetadataService mediaMetadataService;
+
+    @Autowired
+    public FeedAssembler(PostRepository postRepository, UserSummaryCache userSummaryCache,
+            LikeCounterBuffer likeCounterBuffer, MediaMetadataService mediaMetadataService) {
+        this.postRepository = postRepository;
+        this.userSummaryCache = userSummaryCache;
+        this.likeCounterBuffer = likeCounterBuffer;
+        this.mediaMetadataService = mediaMetadataService;
+    }
+
+    public List<PostResponse> assemble(List<Post> posts) {
+        if (posts == null || posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> originalIds = new LinkedHashSet<>();
+        for (Post post : posts) {
+            if (post.getSharedFrom() != null) {
+                originalIds.add(post.getSharedFrom());
+            }
+        }
+        Map<String, Post> originals = loadPosts(originalIds);
+
+        Set<String> userIds = new LinkedHashSet<>();
+        for (Post post : posts) {
+            if (post.getUserId() != null) {
+                userIds.add(post.getUserId());
+            }
+        }
+        for (Post original : originals.values()) {
+            if (original.getUserId() != null) {
+                userIds.add(original.getUserId());
+            }
+        }
+        Map<String, UserSummary> users = loadUsers(userIds);
+
+        Set<String> imageIds = new LinkedHashSet<>();
+        for (Post post : posts) {
+            addMediaIds(imageIds, post.getImageUrls());
+        }
+        for (Post original : originals.values()) {
+            addMediaIds(imageIds, original.getImageUrls());
+        }
+        Map<String, MediaMetadata> images = loadMedia(imageIds);
+
+        List<PostResponse> responses = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            PostResponse response = toResponse(post, users.get(post.getUserId()));
+            response.setImagePreviews(previews(post.getImageUrls(), images));
+            if (post.getSharedFrom() != null) {
+                Post original = originals.get(post.getSharedFrom());
+                applyShareDetails(response, post, original, users);
+                if (original != null) {
+                    response.setOriginalImagePreviews(previews(original.getImageUrls(), images));
+                }
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    public PostResponse assemble(Post post) {
+        return assemble(Collections.singletonList(post)).get(0);
+    }
+
+    private Map<String, Post> loadPosts(Set<String> postIds) {
+        Map<String, Post> byId = new HashMap<>();
+        if (postIds.isEmpty()) {
+            return byId;
+        }
+        try {
+            for (Post post : postRepository.findAllById(postIds)) {
+                byId.put(post.getId(), post);
+            }
+        } catch (Exception e) {
+            System.err.println("Error fetching original posts: " + e.getMessage());
+        }
+        return byId;
+    }
+
+    private Map<String, UserSummary> loadUsers(Set<String> userIds) {
+        try {
+            return userSummaryCache.getAll(userIds);
+        } catch (Exception e) {
+            // Authors render as "Deleted User" rather than failing the page
+            System.err.println("Error fetching post authors: " + e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    private Map<String, MediaMetadata> loadMedia(Set<String> mediaIds) {
+        try {
+            return mediaMetadataService.findAll(mediaIds);
+        } catch (Exception e) {
+            // Images still load without previews, just without a placeholder first
+            System.err.println("Error fetching media metadata: " + e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    private static void addMediaIds(Set<String> mediaIds, List<String> urls) {
+        if (urls == null) {
+            return;
+        }
+        for (String url : urls) {
+            String mediaId = mediaIdOf(url);
+            if (mediaId != null) {
+                mediaIds.add(mediaId);
+            }
+        }
+    }
+
+    private static List<MediaPreview> previews(List<String> urls, Map<String, MediaMetadata> images) {
+        List<MediaPreview> previews = new ArrayList<>();
+        if (urls == null) {
+            return previews;
+        }
+        for (String url : urls) {
+            String mediaId = mediaIdOf(url);
+            MediaMetadata metadata = mediaId != null ? images.get(mediaId) : null;
+            previews.add(metadata == null ? null
+                    : new MediaPreview(metadata.getWidth(), metadata.getHeight(), metadata.getPlaceholder()));
+        }
+        return previews;
+    }
+
+    private static String mediaIdOf(String url) {
+        if (url == null || !url.startsWith("/api/media/")) {
+            return null;
+        }
+        return url.substring("/api/media/".length());
+    }
+
+    private PostResponse toResponse(Post post, UserSummary author) {
+        PostResponse response = new PostResponse();
+        response.setId(post.getId());
+        response.setContent(post.getContent());
+        response.setImageUrls(post.getImageUrls());
+        response.setImageSizes(imageSizes(post.getImageUrls()));
+        response.setVideoUrl(post.getVideoUrl());
+        response.setMediaIds(post.getMediaIds());
+        response.setMediaTypes(post.getMediaTypes());
+        response.setMediaStatus(post.getMediaStatus());
+        // Include likes still waiting in the buffer when the counter mode is buffered
+        response.setLikes((int) (post.getLikes() + likeCounterBuffer.pending(post.getId())));
+        response.setComments(post.getComments());
+        response.setCommentCount(post.getCommentCount());
+        response.setCreatedAt(post.getCreatedAt());
+        response.setUserId(post.getUserId());
+
+        // Handle potentially deleted users gracefully
+        if (author != null) {
+            response.setUserName(author.getDisplayName());
+            response.setUserProfilePicture(author.getAvatarUrl());
+            response.setUserProfilePictureThumbnail(
+                    sizedUrl(author.getAvatarUrl(), ImageDerivativeService.AVATAR_WIDTHS.get(0)));
+        } else {
+            response.setUserName("Deleted User");
+            response.setUserProfilePicture(null);
+        }
+        return response;
+    }
+
+    // Derivative URLs can be built without a lookup: the media endpoint falls
+    // back to the original while a size has not been generated
+    private List<Map<String, String>> imageSizes(List<String> imageUrls) {
+        List<Map<String, String>> sizes = new ArrayList<>();
+        if (imageUrls == null) {
+            return sizes;
+        }
+        for (String url : imageUrls) {
+            Map<String, String> byWidth = new LinkedHashMap<>();
+            for (int width : ImageDerivativeService.FEED_WIDTHS) {
+                byWidth.put(String.valueOf(width), sizedUrl(url, width));
+            }
+            sizes.add(byWidth);
+        }
+        return sizes;
+    }
+
+    private static String sizedUrl(String url, int width) {
+        if (url == null || !url.startsWith("/api/media/")) {
+            return url;
+        }
+        return url + "?size=" + width;
+    }
+
+    private void applyShareDetails(PostResponse response, Post post, Post originalPost,
+            Map<String, UserSummary> users) {
+        if (originalPost != null) {
+            response.setOriginalContent(originalPost.getContent());
+            response.setOriginalImageUrls(originalPost.getImageUrls());
+            response.setOriginalVideoUrl(originalPost.getVideoUrl());
+            response.setOriginalCreatedAt(originalPost.getCreatedAt());
+
+            UserSummary originalUser = users.get(originalPost.getUserId());
+            if (originalUser != null) {
+                response.setOriginalUserId(originalUser.getId());
+                response.setOriginalUserName(originalUser.getDisplayName());
+                response.setOriginalUserProfilePicture(originalUser.getAvatarUrl());
+            }
+        }
+
+        UserSummary sharingUser = users.get(post.getUserId());
+        if (sharingUser != null) {
+            response.setSharedByUserId(sharingUser.getId());
+            response.setSharedByUserName(sharingUser.getDisplayName());
+            response.setSharedByUserProfilePicture(sharingUser.getAvatarUrl());
+            response.setSharedAt(post.getCreatedAt());
+        }
+    }
+}
@@ -23,14 +23,17 @@ public class GoogleAuthService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserSummaryCache userSummaryCache;
     private final String clientId;
 
     public GoogleAuthService(
             UserRepository userRepository,
             PasswordEncoder passwordEncoder,
+            UserSummaryCache userSummaryCache,
             @Value("${google.oauth.client-id}") String clientId) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userSummaryCache = userSummaryCache;
         this.clientId = clientId;
     }
 
@@ -74,6 +77,8 @@ public class GoogleAuthService {
                 if (picture != null && !picture.equals(existingUser.getProfilePicture())) {
                     existingUser.setProfilePicture(picture);
                     userRepository.save(existingUser);
+                    // Posts and comments show the avatar from the summary cache
+                    userSummaryCache.invalidate(existingUser.getId());
                 }
                 
                 // Update last login time
@@ -0,0 +1,52 @@
+package com.example.backend.service;
+
+import com.mongodb.client.gridfs.GridFSBucket;
+import org.bson.types.ObjectId;
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+
+/**
+ * Resource over a GridFS file that opens a fresh download stream on every
+ * {@link #getInputStream()} call. Spring MVC can then stream it in fixed-size
+ * chunks and serve byte ranges from it (each range skips to its offset)
+ * instead of buffering the whole file in memory.
+ */
+public class GridFsMediaResource extends AbstractResource {
+    private final GridFSBucket gridFSBucket;
+    private final ObjectId fileId;
+    private final long length;
+    private final String filename;
+
+    public GridFsMediaResource(GridFSBucket gridFSBucket, ObjectId fileId, long length, String filename) {
+        this.gridFSBucket = gridFSBucket;
+        this.fileId = fileId;
+        this.length = length;
+        this.filename = filename;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return gridFSBucket.openDownloadStream(fileId);
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public String getDescription() {
+        return "GridFS media [" + fileId.toHexString() + "]";
+    }
+}
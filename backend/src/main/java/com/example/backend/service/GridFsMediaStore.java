@@ -0,0 +1,106 @@
+package com.example.backend.service;
+
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Media in the shared GridFS bucket, readable from every node. Reads with a
+ * known length cost no query; the bytes are streamed when the resource is
+ * opened.
+ */
+public class GridFsMediaStore implements MediaStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final GridFSBucket gridFSBucket;
+
+    public GridFsMediaStore(GridFSBucket gridFSBucket) {
+        this.gridFSBucket = gridFSBucket;
+    }
+
+    @Override
+    public String getName() {
+        return "gridfs";
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    @Override
+    public Optional<Resource> read(String id, long length) {
+        if (!ObjectId.isValid(id)) {
+            return Optional.empty();
+        }
+        ObjectId fileId = new ObjectId(id);
+        String filename = null;
+        if (length < 0) {
+            GridFSFile file = gridFSBucket.find(new Document("_id", fileId)).first();
+            if (file == null) {
+                return Optional.empty();
+            }
+            length = file.getLength();
+            filename = file.getFilename();
+        }
+        return Optional.of(new GridFsMediaResource(gridFSBucket, fileId, length, filename));
+    }
+
+    @Override
+    public long write(String id, String filename, String contentType, long length, InputStream content)
+            throws IOException {
+        GridFSUploadOptions options = new GridFSUploadOptions()
+                .metadata(new Document("type", typeOf(contentType))
+                        .append("contentType", contentType));
+        GridFSUploadStream upload = gridFSBucket.openUploadStream(
+                new BsonObjectId(new ObjectId(id)), filename != null ? filename : id, options);
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long written = 0;
+        try {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                upload.write(buffer, 0, read);
+                written += read;
+            }
+        } catch (IOException | RuntimeException e) {
+            upload.abort();
+            throw e;
+        }
+        // Closing the upload stream writes the GridFS files document
+        upload.close();
+        return written;
+    }
+
+    @Override
+    public void delete(String id) {
+        if (!ObjectId.isValid(id)) {
+            return;
+        }
+        try {
+            gridFSBucket.delete(new ObjectId(id));
+        } catch (MongoGridFSException e) {
+            // Already gone
+            System.err.println("GridFS file " + id + " not found for deletion: " + e.getMessage());
+        }
+    }
+
+    // The "type" field older readers use to guess a content type
+    private static String typeOf(String contentType) {
+        if (contentType != null && contentType.startsWith("video/")) {
+            return "video";
+        }
+        return "image";
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Size-bounded cache of hot media bytes kept in direct (off-heap) buffers, so
+ * frequently served avatars and post images skip disk and GridFS without
+ * adding to the GC-scanned heap.
+ *
+ * Caffeine's eviction policy is W-TinyLFU: a new entry only displaces a
+ * resident one if its estimated access frequency is higher, so a burst of
+ * one-off requests cannot flush the hot set. Entries are weighed by byte size;
+ * files above the per-entry limit (typically videos) are always streamed from
+ * their store. Used as the memory tier of the {@link TieredMediaStore}.
+ */
+@Component
+public class HotMediaCache {
+
+    private final Cache<String, ByteBuffer> cache;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    public HotMediaCache(
+            @Value("${cache.hot-media.max-bytes:67108864}") long maxBytes,
+            @Value("${cache.hot-media.max-entry-bytes:1048576}") long maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, Integer.MAX_VALUE);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String mediaId, ByteBuffer bytes) -> bytes.capacity())
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Resource> get(String mediaId) {
+        ByteBuffer bytes = cache.getIfPresent(mediaId);
+        return bytes != null ? Optional.of(new ByteBufferResource(bytes, mediaId)) : Optional.empty();
+    }
+
+    /**
+     * Cache length bytes read from content under mediaId. Content that is too
+     * large, or that fails to load, is not cached.
+     *
+     * @return whether mediaId is now cached
+     */
+    public boolean put(String mediaId, InputStream content, long length) {
+        if (length <= 0 || length > maxEntryBytes) {
+            return false;
+        }
+        // Concurrent promotions of the same file load it once
+        return cache.get(mediaId, id -> copyOffHeap(id, content, (int) length)) != null;
+    }
+
+    public void invalidate(String mediaId) {
+        cache.invalidate(mediaId);
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("bytes", cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L));
+        result.put("maxBytes", maxBytes);
+        return result;
+    }
+
+    private ByteBuffer copyOffHeap(String mediaId, InputStream content, int length) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        try (ReadableByteChannel channel = Channels.newChannel(content)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    System.err.println("Media " + mediaId + " was shorter than its recorded length, not caching");
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error caching media " + mediaId + ": " + e.getMessage());
+            return null;
+        }
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Each stream reads through its own view of the shared buffer, so
+     * concurrent and ranged responses never disturb each other's position.
+     */
+    private static final class ByteBufferResource extends AbstractResource {
+        private final ByteBuffer bytes;
+        private final String mediaId;
+
+        ByteBufferResource(ByteBuffer bytes, String mediaId) {
+            this.bytes = bytes;
+            this.mediaId = mediaId;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(bytes.duplicate());
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return bytes.capacity();
+        }
+
+        @Override
+        public String getDescription() {
+            return "Cached media [" + mediaId + "]";
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.backend.service;
+
+import com.example.backend.model.MediaMetadata;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+/**
+ * Generates downscaled copies of uploaded images with ImageIO so clients can
+ * fetch the size they display instead of the full-resolution original.
+ *
+ * Derivatives are re-encoded from decoded pixels, so EXIF and other metadata
+ * of the original is not carried over; the EXIF orientation is applied to the
+ * pixels first so rotated phone photos stay upright. Opaque images become
+ * quality-tuned JPEGs; images with transparency stay PNG.
+ */
+@Service
+public class ImageDerivativeService {
+
+    public static final List<Integer> FEED_WIDTHS = List.of(320, 720, 1080);
+    public static final List<Integer> AVATAR_WIDTHS = List.of(64);
+    // Media from before derivatives existed does not say what it is used for
+    private static final List<Integer> ALL_WIDTHS = List.of(64, 320, 720, 1080);
+    // A generation still marked pending after this long is assumed lost with its node
+    private static final long STALE_PENDING_MINUTES = 10;
+
+    private static final float JPEG_QUALITY = 0.82f;
+    // Long side of the inline placeholder; 8 px keeps the PNG around 200 bytes
+    private static final int PLACEHOLDER_SIZE = 8;
+
+    private final Executor executor;
+    private final MediaStore mediaStore;
+    private final MediaMetadataService mediaMetadataService;
+
+    public ImageDerivativeService(
+            @Qualifier("taskExecutor") Executor executor,
+            MediaStore mediaStore,
+            MediaMetadataService mediaMetadataService) {
+        this.executor = executor;
+        this.mediaStore = mediaStore;
+        this.mediaMetadataService = mediaMetadataService;
+    }
+
+    public static boolean isResizable(String contentType) {
+        // GIFs may be animated and would lose every frame but the first
+        return contentType != null && contentType.startsWith("image/") && !contentType.equals("image/gif");
+    }
+
+    /**
+     * Whether a derivative of the given width is expected for media but has not
+     * been stored yet, so the original served in its place must not be cached.
+     * Once generation has finished or failed nothing more is expected.
+     *
+     * Media uploaded before derivatives were generated, and generations lost
+     * with their node, get their derivatives queued here on the first request.
+     */
+    public boolean isPending(MediaMetadata media, int width) {
+        if (!isResizable(media.getContentType()) || media.getDerivativeOf() != null) {
+            return false;
+        }
+        if (!FEED_WIDTHS.contains(width) && !AVATAR_WIDTHS.contains(width)) {
+            return false;
+        }
+        if (media.getWidth() != null && media.getWidth() <= width) {
+            return false;
+        }
+        String contentId = media.resolveContentId();
+        Optional<MediaMetadata> owner = contentId.equals(media.getId())
+                ? Optional.of(media)
+                : mediaMetadataService.find(contentId);
+        if (owner.isEmpty()) {
+            return false;
+        }
+        String status = owner.get().getDerivativeStatus();
+        if (MediaMetadata.DERIVATIVES_READY.equals(status) || MediaMetadata.DERIVATIVES_FAILED.equals(status)) {
+            return false;
+        }
+        if (mediaMetadataService.findDerivative(media, width).isPresent()) {
+            return false;
+        }
+        generateMissing(owner.get());
+        return true;
+    }
+
+    /**
+     * Queue generation of the given widths for mediaId on the MediaProcessor
+     * executor. Widths at or above the original width are skipped. The outcome
+     * is recorded on the media, so a failed or undecodable image is not
+     * waited for again.
+     */
+    public void generateAsync(String mediaId, String ownerId, InputStreamSource source, List<Integer> widths) {
+        executor.execute(() -> generateNow(mediaId, ownerId, source, widths));
+    }
+
+    /**
+     * Like {@link #generateAsync} but on the calling thread, for callers that
+     * already run on the executor and hold a local copy of the image that
+     * will be gone by the time a queued task ran.
+     */
+    public void generateNow(String mediaId, String ownerId, InputStreamSource source, List<Integer> widths) {
+        String status = MediaMetadata.DERIVATIVES_FAILED;
+        try {
+            if (generate(mediaId, ownerId, source, widths)) {
+                status = MediaMetadata.DERIVATIVES_READY;
+            }
+        } catch (Exception e) {
+            System.err.println("Error generating derivatives for " + mediaId + ": " + e.getMessage());
+        }
+        try {
+            mediaMetadataService.setDerivativeStatus(mediaId, status);
+        } catch (Exception e) {
+            System.err.println("Error recording derivatives of " + mediaId + ": " + e.getMessage());
+        }
+    }
+
+    private void generateMissing(MediaMetadata media) {
+        LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(STALE_PENDING_MINUTES);
+        if (MediaMetadata.DERIVATIVES_PENDING.equals(media.getDerivativeStatus())
+                && media.getDerivativesRequestedAt() != null
+                && media.getDerivativesRequestedAt().isAfter(staleBefore)) {
+            return;
+        }
+        if (!mediaMetadataService.claimDerivatives(media.getId(), staleBefore)) {
+            return;
+        }
+        InputStreamSource source = () -> mediaStore.read(media.getId(), media.getLength())
+                .orElseThrow(() -> new IOException("Media " + media.getId() + " is not in the media store"))
+                .getInputStream();
+        generateAsync(media.getId(), media.getOwnerId(), source, ALL_WIDTHS);
+    }
+
+    /**
+     * A tiny PNG of the image as a data URI, meant to be shown blurred while
+     * the real image loads, or null if the image cannot be decoded.
+     */
+    public static String placeholder(InputStreamSource source) {
+        try {
+            BufferedImage image = decode(source, PLACEHOLDER_SIZE);
+            if (image == null) {
+                return null;
+            }
+            int width = image.getWidth() >= image.getHeight()
+                    ? PLACEHOLDER_SIZE
+                    : (int) Math.round(PLACEHOLDER_SIZE * (double) image.getWidth() / image.getHeight());
+            width = Math.max(1, Math.min(width, image.getWidth()));
+            BufferedImage tiny = scaleToWidth(image, width, image.getColorModel().hasAlpha());
+            return "data:image/png;base64," + Base64.getEncoder().encodeToString(encodePng(tiny));
+        } catch (Exception e) {
+            System.err.println("Could not create image placeholder: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return false if the image could not be decoded
+     */
+    private boolean generate(String mediaId, String ownerId, InputStreamSource source, List<Integer> widths)
+            throws IOException {
+        int largest = Collections.max(widths);
+        BufferedImage original = decode(source, largest);
+        if (original == null) {
+            return false;
+        }
+
+        boolean hasAlpha = original.getColorModel().hasAlpha();
+        for (int width : widths) {
+            if (width >= original.getWidth()) {
+                continue;
+            }
+            BufferedImage scaled = scaleToWidth(original, width, hasAlpha);
+            byte[] encoded = hasAlpha ? encodePng(scaled) : encodeJpeg(scaled);
+            store(mediaId, ownerId, width, scaled, encoded, hasAlpha ? "image/png" : "image/jpeg");
+        }
+        return true;
+    }
+
+    private void store(String mediaId, String ownerId, int width, BufferedImage image, byte[] encoded,
+            String contentType) throws IOException {
+        String derivativeId = new ObjectId().toHexString();
+        mediaStore.write(derivativeId, mediaId + "_" + width, contentType, encoded.length,
+                new ByteArrayInputStream(encoded));
+
+        MediaMetadata metadata = new MediaMetadata(derivativeId, contentType, encoded.length);
+        metadata.setWidth(image.getWidth());
+        metadata.setHeight(image.getHeight());
+        metadata.setOwnerId(ownerId);
+        metadata.setFilename(mediaId + "_" + width);
+        metadata.setDerivativeOf(mediaId);
+        mediaMetadataService.save(metadata);
+        mediaMetadataService.addDerivative(mediaId, width, derivativeId);
+    }
+
+    /**
+     * Decode an image, letting the reader skip pixels when the original is far
+     * larger than the biggest derivative so a 10 MB photo is never fully
+     * expanded in memory. Two pixels per target pixel are kept for smooth
+     * downscaling.
+     */
+    private static BufferedImage decode(InputStreamSource source, int largestWidth) throws IOException {
+        try (InputStream in = source.getInputStream();
+                ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            if (imageIn == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = reader.getWidth(0) / (2 * largestWidth);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                int orientation = readExifOrientation(reader);
+                return rotate(reader.read(0, param), orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * EXIF orientation of a JPEG (1 when absent), read from the APP1 segment
+     * ImageIO exposes as an unknown marker.
+     */
+    private static int readExifOrientation(ImageReader reader) {
+        try {
+            IIOMetadata metadata = reader.getImageMetadata(0);
+            if (metadata == null || !"javax_imageio_jpeg_image_1.0".equals(metadata.getNativeMetadataFormatName())) {
+                return 1;
+            }
+            Node tree = metadata.getAsTree("javax_imageio_jpeg_image_1.0");
+            NodeList markers = ((Element) tree).getElementsByTagName("unknown");
+            for (int i = 0; i < markers.getLength(); i++) {
+                IIOMetadataNode marker = (IIOMetadataNode) markers.item(i);
+                if ("225".equals(marker.getAttribute("MarkerTag")) && marker.getUserObject() instanceof byte[]) {
+                    return exifOrientation((byte[]) marker.getUserObject());
+                }
+            }
+        } catch (Exception e) {
+            // Unreadable metadata: keep the pixels as decoded
+        }
+        return 1;
+    }
+
+    private static int exifOrientation(byte[] app1) {
+        // "Exif\0\0" then a TIFF header: byte order, magic 42, offset of IFD0
+        if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') {
+            return 1;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if ((tiff.getShort(entry) & 0xFFFF) == 0x0112) {
+                return tiff.getShort(entry + 8) & 0xFFFF;
+            }
+        }
+        return 1;
+    }
+
+    // Orientations 3, 6 and 8 cover camera rotation; mirrored ones are left as is
+    private static BufferedImage rotate(BufferedImage image, int orientation) {
+        int quarterTurns;
+        switch (orientation) {
+            case 3:
+                quarterTurns = 2;
+                break;
+            case 6:
+                quarterTurns = 1;
+                break;
+            case 8:
+                quarterTurns = 3;
+                break;
+            default:
+                return image;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean swap = quarterTurns % 2 == 1;
+        BufferedImage rotated = new BufferedImage(swap ? height : width, swap ? width : height,
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rotated.createGraphics();
+        try {
+            AffineTransform transform = new AffineTransform();
+            transform.translate(rotated.getWidth() / 2.0, rotated.getHeight() / 2.0);
+            transform.quadrantRotate(quarterTurns);
+            transform.translate(-width / 2.0, -height / 2.0);
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return rotated;
+    }
+
+    // Halve repeatedly with bilinear filtering; a single large bilinear step
+    // skips source pixels and looks noticeably aliased
+    private static BufferedImage scaleToWidth(BufferedImage source, int targetWidth, boolean hasAlpha) {
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * (double) targetWidth / source.getWidth()));
+        int type = hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!hasAlpha) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, width, height);
+                }
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
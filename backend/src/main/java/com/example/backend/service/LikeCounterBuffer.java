@@ -0,0 +1,119 @@
+package com.example.backend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped in-memory buffer of like deltas per post. Writers only touch a
+ * {@link LongAdder} cell, so a single hot post no longer serialises every
+ * toggle on one Mongo document; a periodic flush folds the deltas into
+ * {@code Post.likes} with one $inc per post.
+ *
+ * Idle counters are evicted without locking out writers: the drain marks a
+ * counter retired before taking what is left in it, and a writer that finds
+ * the counter it just added to retired takes what is left itself and adds it
+ * to the counter that replaces it. Every increment is taken exactly once,
+ * either by the drain or by such a writer.
+ *
+ * Deltas not yet flushed are lost if the node dies; the reactions collection
+ * remains the source of truth for individual likes.
+ */
+@Component
+public class LikeCounterBuffer {
+
+    private static final long DEFAULT_IDLE_EVICT_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final ConcurrentHashMap<String, Counter> pending = new ConcurrentHashMap<>();
+    private final long idleEvictNanos;
+
+    public LikeCounterBuffer() {
+        this(DEFAULT_IDLE_EVICT_NANOS);
+    }
+
+    LikeCounterBuffer(long idleEvictNanos) {
+        this.idleEvictNanos = idleEvictNanos;
+    }
+
+    public void add(String postId, long delta) {
+        while (delta != 0) {
+            Counter counter = pending.get(postId);
+            if (counter == null) {
+                counter = pending.computeIfAbsent(postId, key -> new Counter());
+            }
+            counter.delta.add(delta);
+            if (!counter.retired) {
+                return;
+            }
+            // Evicted around our add: whatever the drain did not take, which
+            // may include our delta, moves to the counter that replaces it
+            delta = counter.delta.sumThenReset();
+        }
+    }
+
+    /**
+     * Delta for a post that has not been flushed yet.
+     */
+    public long pending(String postId) {
+        Counter counter = pending.get(postId);
+        return counter != null ? counter.delta.sum() : 0;
+    }
+
+    /**
+     * Take every non-zero delta accumulated since the previous drain. Callers
+     * that fail to persist a delta should hand it back with {@link #add}.
+     * LongAdder.sumThenReset swaps each cell atomically on Java 17, so an
+     * increment racing with a drain is reported by this drain or the next one,
+     * never dropped.
+     */
+    public synchronized Map<String, Long> drain() {
+        Map<String, Long> deltas = new HashMap<>();
+        long now = System.nanoTime();
+
+        Iterator<Map.Entry<String, Counter>> entries = pending.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Counter> entry = entries.next();
+            Counter counter = entry.getValue();
+            long delta = counter.delta.sumThenReset();
+
+            if (delta != 0) {
+                counter.lastActiveNanos = now;
+            } else if (now - counter.lastActiveNanos >= idleEvictNanos) {
+                pending.computeIfPresent(entry.getKey(), (key, current) -> {
+                    if (current != counter) {
+                        return current;
+                    }
+                    counter.retired = true;
+                    return null;
+                });
+                // Anything added before a writer could see the counter retired
+                // is taken here; anything later is moved on by that writer
+                if (counter.retired) {
+                    delta = counter.delta.sumThenReset();
+                }
+            }
+
+            if (delta != 0) {
+                deltas.put(entry.getKey(), delta);
+            }
+        }
+        return deltas;
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    private static final class Counter {
+        final LongAdder delta = new LongAdder();
+        // Set once, when the counter is removed from the map
+        volatile boolean retired;
+        // Only read and written by drain(), which is synchronized
+        long lastActiveNanos = System.nanoTime();
+    }
+}
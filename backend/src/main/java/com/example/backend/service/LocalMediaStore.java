@@ -0,0 +1,131 @@
+package com.example.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Media files in a directory on this node's disk, named by media ID. Files are
+ * written under a temporary name and renamed into place, so a reader never
+ * sees a partial file.
+ *
+ * The directory is a cache of the durable tier, bounded to maxBytes: an index
+ * of the files weighed by size evicts like the {@link HotMediaCache} does, and
+ * an evicted file is deleted from disk. Files left from an earlier run are
+ * indexed at startup.
+ */
+public class LocalMediaStore implements MediaStore {
+
+    // Media IDs are ObjectId hex strings; anything else never reaches the filesystem
+    private static final Pattern SAFE_ID = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final Path directory;
+    private final Cache<String, Long> files;
+
+    public LocalMediaStore(Path directory, long maxBytes) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.files = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String id, Long size) -> (int) Math.min(size, Integer.MAX_VALUE))
+                .evictionListener((String id, Long size, RemovalCause cause) -> {
+                    if (id != null) {
+                        deleteFile(id);
+                    }
+                })
+                .build();
+        try {
+            Files.createDirectories(this.directory);
+            indexExisting();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create media directory " + this.directory, e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    @Override
+    public Optional<Resource> read(String id, long length) {
+        if (!SAFE_ID.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        if (files.getIfPresent(id) == null) {
+            return Optional.empty();
+        }
+        Path file = directory.resolve(id);
+        if (!Files.isRegularFile(file)) {
+            files.invalidate(id);
+            return Optional.empty();
+        }
+        return Optional.of(new FileSystemResource(file));
+    }
+
+    @Override
+    public long write(String id, String filename, String contentType, long length, InputStream content)
+            throws IOException {
+        if (!SAFE_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid media ID: " + id);
+        }
+        Path target = directory.resolve(id);
+        Path temp = directory.resolve(id + ".tmp-" + UUID.randomUUID());
+        try {
+            long written = Files.copy(content, temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            files.put(id, written);
+            return written;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        if (!SAFE_ID.matcher(id).matches()) {
+            return;
+        }
+        files.invalidate(id);
+        deleteFile(id);
+    }
+
+    private void indexExisting() throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) entries::iterator) {
+                String id = file.getFileName().toString();
+                if (id.contains(".tmp-")) {
+                    // Left behind by a write interrupted by a crash
+                    Files.deleteIfExists(file);
+                } else if (SAFE_ID.matcher(id).matches() && Files.isRegularFile(file)) {
+                    files.put(id, Files.size(file));
+                }
+            }
+        }
+    }
+
+    private void deleteFile(String id) {
+        try {
+            Files.deleteIfExists(directory.resolve(id));
+        } catch (IOException e) {
+            System.err.println("Could not delete local media " + id + ": " + e.getMessage());
+        }
+    }
+}
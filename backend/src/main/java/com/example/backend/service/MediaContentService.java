@@ -0,0 +1,158 @@
+package com.example.backend.service;
+
+import com.example.backend.model.MediaContent;
+import com.example.backend.model.MediaMetadata;
+import com.mongodb.client.result.DeleteResult;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reference counting for content-addressed media. Uploads are keyed by the
+ * SHA-256 of their bytes, so identical files are stored (and cached) once and
+ * deleting a post only removes bytes no other post or profile still uses.
+ */
+@Service
+public class MediaContentService {
+
+    private final MongoTemplate mongoTemplate;
+    private final MediaStore mediaStore;
+    private final MediaMetadataService mediaMetadataService;
+
+    public MediaContentService(MongoTemplate mongoTemplate, MediaStore mediaStore,
+            MediaMetadataService mediaMetadataService) {
+        this.mongoTemplate = mongoTemplate;
+        this.mediaStore = mediaStore;
+        this.mediaMetadataService = mediaMetadataService;
+    }
+
+    /**
+     * Add a reference for bytes that were just stored under mediaId.
+     *
+     * @return the media ID that holds these bytes: mediaId itself for new
+     *         content, otherwise the ID of the earlier identical upload, in
+     *         which case the caller should drop its own copy
+     */
+    public String claim(String sha256, String mediaId) {
+        Query query = new Query(Criteria.where("_id").is(sha256));
+        Update update = new Update()
+                .inc("refCount", 1)
+                .setOnInsert("mediaId", mediaId)
+                .setOnInsert("createdAt", LocalDateTime.now());
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+
+        try {
+            return mongoTemplate.findAndModify(query, update, options, MediaContent.class).getMediaId();
+        } catch (DuplicateKeyException e) {
+            // An identical upload inserted the record first; this time the update path applies
+            return mongoTemplate.findAndModify(query, update, options, MediaContent.class).getMediaId();
+        }
+    }
+
+    /**
+     * Add a reference for media that is now also used elsewhere, e.g. by a share.
+     */
+    public void retain(Collection<String> mediaIds) {
+        if (mediaIds == null) {
+            return;
+        }
+        for (String mediaId : mediaIds) {
+            mediaMetadataService.find(mediaId)
+                    .map(MediaMetadata::getSha256)
+                    .ifPresent(sha256 -> mongoTemplate.updateFirst(
+                            new Query(Criteria.where("_id").is(sha256)),
+                            new Update().inc("refCount", 1),
+                            MediaContent.class));
+        }
+    }
+
+    /**
+     * Drop one reference to mediaId, deleting the bytes from every media store
+     * tier, and the metadata, once nothing references them any more.
+     *
+     * @return the ID whose bytes were deleted, or null while other references
+     *         remain
+     */
+    public String release(String mediaId) {
+        Optional<MediaMetadata> metadata = mediaMetadataService.find(mediaId);
+        if (metadata.isEmpty() || metadata.get().getSha256() == null) {
+            // Stored before content addressing, so this was the only reference
+            String contentId = metadata.map(MediaMetadata::resolveContentId).orElse(mediaId);
+            deleteBytes(contentId);
+            deleteDerivatives(metadata);
+            mediaMetadataService.delete(mediaId);
+            return contentId;
+        }
+
+        String sha256 = metadata.get().getSha256();
+        String contentId = metadata.get().resolveContentId();
+        MediaContent content = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(sha256)),
+                new Update().inc("refCount", -1),
+                FindAndModifyOptions.options().returnNew(true),
+                MediaContent.class);
+        if (content != null && content.getRefCount() > 0) {
+            return null;
+        }
+
+        if (content != null) {
+            // Only remove the record if no upload claimed it again in the meantime
+            DeleteResult removed = mongoTemplate.remove(
+                    new Query(Criteria.where("_id").is(sha256).and("refCount").lte(0)),
+                    MediaContent.class);
+            if (removed.getDeletedCount() == 0) {
+                return null;
+            }
+        }
+
+        deleteBytes(contentId);
+        deleteDerivatives(mediaMetadataService.find(contentId));
+        mediaMetadataService.deleteByContentId(contentId);
+        return contentId;
+    }
+
+    /**
+     * Delete media that nothing references any more whatever its reference
+     * count says, for {@link MediaGarbageCollector}: the bytes in every tier,
+     * its derivatives, the metadata of every alias and the content record.
+     *
+     * @return the bytes freed according to the metadata, 0 if there was none
+     */
+    public long purge(String contentId) {
+        Optional<MediaMetadata> metadata = mediaMetadataService.find(contentId);
+        long freed = metadata.map(MediaMetadata::getLength).orElse(0L);
+        for (String derivativeId : metadata.map(MediaMetadata::getDerivatives).orElse(Map.of()).values()) {
+            freed += mediaMetadataService.find(derivativeId).map(MediaMetadata::getLength).orElse(0L);
+        }
+
+        deleteBytes(contentId);
+        deleteDerivatives(metadata);
+        metadata.map(MediaMetadata::getSha256).ifPresent(sha256 -> mongoTemplate.remove(
+                new Query(Criteria.where("_id").is(sha256).and("mediaId").is(contentId)),
+                MediaContent.class));
+        mediaMetadataService.deleteByContentId(contentId);
+        return freed;
+    }
+
+    private void deleteDerivatives(Optional<MediaMetadata> owner) {
+        owner.map(MediaMetadata::getDerivatives).ifPresent(derivatives -> {
+            for (String derivativeId : derivatives.values()) {
+                deleteBytes(derivativeId);
+                mediaMetadataService.delete(derivativeId);
+            }
+        });
+    }
+
+    private void deleteBytes(String contentId) {
+        mediaStore.delete(contentId);
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Group;
+import com.example.backend.model.MediaMetadata;
+import com.example.backend.model.Post;
+import com.example.backend.model.UploadSession;
+import com.example.backend.model.User;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Deletes media nothing references any more. Reference counting only sees
+ * the paths that release media; reported posts and accounts deleted by an
+ * admin, edits that failed halfway and replaced profile pictures all leave
+ * files behind that no post or user points to.
+ *
+ * Each run walks the media bucket in ID order, a batch at a time, and checks
+ * a whole batch against posts and users with one $in query each. Files
+ * younger than the grace period are left alone, since an upload is stored
+ * before the post or user referencing it is saved. The position is persisted
+ * after every batch, so a restart continues where the last run stopped and a
+ * pass over a large bucket is spread over several runs.
+ *
+ * Staged resumable uploads whose session is gone and group cover images no
+ * group uses any more are swept in the same run.
+ */
+@Service
+public class MediaGarbageCollector {
+
+    private static final String MEDIA_FILES = "media.files";
+    private static final String STAGING_FILES = "upload_staging.files";
+    private static final String STATE_COLLECTION = "media_gc_state";
+    private static final String MEDIA_URL_PREFIX = "/api/media/";
+    // FileStorageService names cover images "<uuid>_<original name>"
+    private static final int COVER_KEY_LENGTH = 36;
+    private static final Pattern COVER_FILENAME = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}_.*");
+
+    private final MongoTemplate mongoTemplate;
+    private final MediaContentService mediaContentService;
+    private final MediaMetadataService mediaMetadataService;
+    private final ChunkedUploadService chunkedUploadService;
+    private final Path coverDirectory;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration gracePeriod;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder completedPasses = new LongAdder();
+    private final LongAdder filesScanned = new LongAdder();
+    private final LongAdder mediaDeleted = new LongAdder();
+    private final LongAdder stagedUploadsDeleted = new LongAdder();
+    private final LongAdder coverImagesDeleted = new LongAdder();
+    private final LongAdder reclaimedBytes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile LocalDateTime lastRunAt;
+
+    public MediaGarbageCollector(
+            MongoTemplate mongoTemplate,
+            MediaContentService mediaContentService,
+            MediaMetadataService mediaMetadataService,
+            ChunkedUploadService chunkedUploadService,
+            @Value("${file.upload-dir:uploads}") String coverDirectory,
+            @Value("${media.gc.batch-size:500}") int batchSize,
+            @Value("${media.gc.max-batches-per-run:20}") int maxBatchesPerRun,
+            @Value("${media.gc.grace-hours:24}") long graceHours) {
+        this.mongoTemplate = mongoTemplate;
+        this.mediaContentService = mediaContentService;
+        this.mediaMetadataService = mediaMetadataService;
+        this.chunkedUploadService = chunkedUploadService;
+        this.coverDirectory = Paths.get(coverDirectory).toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.gracePeriod = Duration.ofHours(graceHours);
+    }
+
+    @Scheduled(fixedDelayString = "${media.gc.interval-ms:3600000}",
+            initialDelayString = "${media.gc.initial-delay-ms:600000}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        runs.increment();
+        try {
+            sweepMedia(Date.from(cutoff));
+        } catch (Exception e) {
+            failures.increment();
+            System.err.println("Error collecting orphaned media: " + e.getMessage());
+        }
+        try {
+            sweepStagedUploads(Date.from(cutoff));
+        } catch (Exception e) {
+            failures.increment();
+            System.err.println("Error collecting orphaned staged uploads: " + e.getMessage());
+        }
+        try {
+            sweepCoverImages(cutoff);
+        } catch (Exception e) {
+            failures.increment();
+            System.err.println("Error collecting orphaned cover images: " + e.getMessage());
+        }
+        lastRunAt = LocalDateTime.now();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("runCount", runs.sum());
+        result.put("completedPassCount", completedPasses.sum());
+        result.put("filesScanned", filesScanned.sum());
+        result.put("mediaDeleted", mediaDeleted.sum());
+        result.put("stagedUploadsDeleted", stagedUploadsDeleted.sum());
+        result.put("coverImagesDeleted", coverImagesDeleted.sum());
+        result.put("reclaimedBytes", reclaimedBytes.sum());
+        result.put("failureCount", failures.sum());
+        result.put("lastRunAt", lastRunAt);
+        result.put("gracePeriodHours", gracePeriod.toHours());
+        return result;
+    }
+
+    private void sweepMedia(Date cutoff) {
+        MongoCollection<Document> files = mongoTemplate.getCollection(MEDIA_FILES);
+        ObjectId after = loadPosition();
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Document filter = new Document("uploadDate", new Document("$lt", cutoff));
+            if (after != null) {
+                filter.append("_id", new Document("$gt", after));
+            }
+            List<Document> page = files.find(filter)
+                    .projection(new Document("length", 1))
+                    .sort(new Document("_id", 1))
+                    .limit(batchSize)
+                    .into(new ArrayList<>());
+            if (page.isEmpty()) {
+                // End of the bucket: the next run starts a new pass from the beginning
+                completedPasses.increment();
+                savePosition(null);
+                return;
+            }
+
+            collectMedia(page);
+            after = page.get(page.size() - 1).getObjectId("_id");
+            savePosition(after);
+        }
+    }
+
+    private void collectMedia(List<Document> page) {
+        Map<String, Long> lengths = new LinkedHashMap<>();
+        for (Document file : page) {
+            Number length = file.get("length", Number.class);
+            lengths.put(file.getObjectId("_id").toHexString(), length != null ? length.longValue() : 0L);
+        }
+        filesScanned.add(lengths.size());
+
+        Map<String, MediaMetadata> metadata = mediaMetadataService.findAll(lengths.keySet());
+        Set<String> orphans = findUnreferenced(lengths.keySet(), metadata);
+        for (String mediaId : orphans) {
+            MediaMetadata media = metadata.get(mediaId);
+            if (media != null && orphans.contains(media.getDerivativeOf())) {
+                // Deleted together with the original it was resized from
+                continue;
+            }
+            try {
+                long freed = mediaContentService.purge(mediaId);
+                mediaDeleted.increment();
+                reclaimedBytes.add(freed > 0 ? freed : lengths.get(mediaId));
+            } catch (Exception e) {
+                failures.increment();
+                System.err.println("Error deleting orphaned media " + mediaId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Files among fileIds that no post or user references: not directly, not
+     * through a duplicate upload sharing their bytes and, for derivatives, not
+     * through the media they were resized from.
+     */
+    private Set<String> findUnreferenced(Collection<String> fileIds, Map<String, MediaMetadata> metadata) {
+        Map<String, String> ownerOf = new HashMap<>();
+        Map<String, Set<String>> idsByOwner = new HashMap<>();
+        for (String fileId : fileIds) {
+            MediaMetadata media = metadata.get(fileId);
+            String owner = media != null && media.getDerivativeOf() != null ? media.getDerivativeOf() : fileId;
+            ownerOf.put(fileId, owner);
+            idsByOwner.computeIfAbsent(owner, id -> new HashSet<>()).add(owner);
+        }
+
+        // Duplicate uploads keep their own media ID, which is what posts reference
+        Query aliasQuery = new Query(Criteria.where("contentId").in(idsByOwner.keySet()));
+        aliasQuery.fields().include("contentId");
+        for (MediaMetadata alias : mongoTemplate.find(aliasQuery, MediaMetadata.class)) {
+            idsByOwner.get(alias.getContentId()).add(alias.getId());
+        }
+
+        Set<String> candidates = new HashSet<>();
+        idsByOwner.values().forEach(candidates::addAll);
+        Set<String> referenced = new HashSet<>();
+
+        Query postQuery = new Query(Criteria.where("mediaIds").in(candidates));
+        postQuery.fields().include("mediaIds");
+        for (Post post : mongoTemplate.find(postQuery, Post.class)) {
+            referenced.addAll(post.getMediaIds());
+        }
+
+        List<String> pictureUrls = new ArrayList<>();
+        for (String candidate : candidates) {
+            pictureUrls.add(MEDIA_URL_PREFIX + candidate);
+        }
+        Query userQuery = new Query(Criteria.where("profilePicture").in(pictureUrls));
+        userQuery.fields().include("profilePicture");
+        for (User user : mongoTemplate.find(userQuery, User.class)) {
+            referenced.add(user.getProfilePicture().substring(MEDIA_URL_PREFIX.length()));
+        }
+
+        Set<String> unreferenced = new LinkedHashSet<>();
+        for (String fileId : fileIds) {
+            if (Collections.disjoint(idsByOwner.get(ownerOf.get(fileId)), referenced)) {
+                unreferenced.add(fileId);
+            }
+        }
+        return unreferenced;
+    }
+
+    /**
+     * Completed resumable uploads are staged until the media pipeline has
+     * stored them. One that is still there long after its session was
+     * consumed or removed was left behind by a failed post.
+     */
+    private void sweepStagedUploads(Date cutoff) {
+        Map<String, Long> staged = new LinkedHashMap<>();
+        mongoTemplate.getCollection(STAGING_FILES)
+                .find(new Document("uploadDate", new Document("$lt", cutoff)))
+                .projection(new Document("length", 1))
+                .limit(batchSize)
+                .forEach(file -> {
+                    Number length = file.get("length", Number.class);
+                    staged.put(file.getObjectId("_id").toHexString(), length != null ? length.longValue() : 0L);
+                });
+        if (staged.isEmpty()) {
+            return;
+        }
+
+        Query sessionQuery = new Query(Criteria.where("_id").in(staged.keySet()));
+        sessionQuery.fields().include("_id");
+        Set<String> live = new HashSet<>();
+        for (UploadSession session : mongoTemplate.find(sessionQuery, UploadSession.class)) {
+            live.add(session.getId());
+        }
+
+        for (Map.Entry<String, Long> upload : staged.entrySet()) {
+            if (!live.contains(upload.getKey())) {
+                chunkedUploadService.deleteStaged(upload.getKey());
+                stagedUploadsDeleted.increment();
+                reclaimedBytes.add(upload.getValue());
+            }
+        }
+    }
+
+    private void sweepCoverImages(Instant cutoff) throws IOException {
+        if (!Files.isDirectory(coverDirectory)) {
+            return;
+        }
+        List<Path> candidates = new ArrayList<>();
+        try (DirectoryStream<Path> directory = Files.newDirectoryStream(coverDirectory)) {
+            for (Path path : directory) {
+                if (Files.isRegularFile(path)
+                        && COVER_FILENAME.matcher(path.getFileName().toString()).matches()
+                        && Files.getLastModifiedTime(path).toInstant().isBefore(cutoff)) {
+                    candidates.add(path);
+                }
+                if (candidates.size() == batchSize) {
+                    collectCoverImages(candidates);
+                    candidates.clear();
+                }
+            }
+        }
+        if (!candidates.isEmpty()) {
+            collectCoverImages(candidates);
+        }
+    }
+
+    private void collectCoverImages(List<Path> candidates) throws IOException {
+        // Groups store the full URL; match on the UUID part of the file name,
+        // which reads the same whether or not the URL was encoded
+        List<Pattern> patterns = new ArrayList<>();
+        for (Path path : candidates) {
+            patterns.add(Pattern.compile("/" + coverKey(path.getFileName().toString()) + "_"));
+        }
+        Query query = new Query(Criteria.where("coverImageUrl").in(patterns));
+        query.fields().include("coverImageUrl");
+        Set<String> used = new HashSet<>();
+        for (Group group : mongoTemplate.find(query, Group.class)) {
+            String url = group.getCoverImageUrl();
+            used.add(coverKey(url.substring(url.lastIndexOf('/') + 1)));
+        }
+
+        for (Path path : candidates) {
+            if (used.contains(coverKey(path.getFileName().toString()))) {
+                continue;
+            }
+            long size = Files.size(path);
+            if (Files.deleteIfExists(path)) {
+                coverImagesDeleted.increment();
+                reclaimedBytes.add(size);
+            }
+        }
+    }
+
+    private static String coverKey(String filename) {
+        return filename.length() >= COVER_KEY_LENGTH ? filename.substring(0, COVER_KEY_LENGTH) : filename;
+    }
+
+    private ObjectId loadPosition() {
+        Document state = mongoTemplate.getCollection(STATE_COLLECTION)
+                .find(new Document("_id", MEDIA_FILES))
+                .first();
+        return state != null ? state.getObjectId("after") : null;
+    }
+
+    private void savePosition(ObjectId after) {
+        mongoTemplate.getCollection(STATE_COLLECTION).replaceOne(
+                new Document("_id", MEDIA_FILES),
+                new Document("_id", MEDIA_FILES).append("after", after).append("updatedAt", new Date()),
+                new ReplaceOptions().upsert(true));
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.backend.service;
+
+import com.example.backend.model.MediaMetadata;
+import com.example.backend.repository.MediaMetadataRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Media metadata recorded at upload time, fronted by a bounded in-memory
+ * cache so that serving a hot media ID costs no database query at all.
+ * Entries expire after a few minutes, so a delete made on another node is
+ * seen here within that window.
+ */
+@Service
+public class MediaMetadataService {
+
+    private final MediaMetadataRepository mediaMetadataRepository;
+    private final MongoTemplate mongoTemplate;
+    private final GridFSBucket gridFSBucket;
+    private final HotMediaCache hotMediaCache;
+    private final Cache<String, MediaMetadata> cache;
+
+    public MediaMetadataService(
+            MediaMetadataRepository mediaMetadataRepository,
+            MongoTemplate mongoTemplate,
+            GridFSBucket gridFSBucket,
+            HotMediaCache hotMediaCache,
+            @Value("${cache.media-metadata.max-size:20000}") long maxSize,
+            @Value("${cache.media-metadata.ttl-minutes:10}") long ttlMinutes) {
+        this.mediaMetadataRepository = mediaMetadataRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.gridFSBucket = gridFSBucket;
+        this.hotMediaCache = hotMediaCache;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<MediaMetadata> find(String mediaId) {
+        return Optional.ofNullable(cache.get(mediaId, this::load));
+    }
+
+    /**
+     * Resolve several media IDs with at most one query for the cache misses.
+     * Unknown IDs are absent from the returned map; unlike {@link #find} this
+     * does not backfill media uploaded before metadata was recorded.
+     */
+    public Map<String, MediaMetadata> findAll(Collection<String> mediaIds) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String mediaId : mediaIds) {
+            if (mediaId != null) {
+                keys.add(mediaId);
+            }
+        }
+        if (keys.isEmpty()) {
+            return new HashMap<>();
+        }
+        return cache.getAll(keys, this::loadAll);
+    }
+
+    /**
+     * Resized copy of media at the given width, if one has been generated.
+     * Duplicate uploads share the derivatives of the record owning the bytes.
+     */
+    public Optional<MediaMetadata> findDerivative(MediaMetadata media, int width) {
+        String contentId = media.resolveContentId();
+        Optional<MediaMetadata> owner = contentId.equals(media.getId()) ? Optional.of(media) : find(contentId);
+        return owner
+                .map(MediaMetadata::getDerivatives)
+                .map(derivatives -> derivatives.get(String.valueOf(width)))
+                .flatMap(this::find);
+    }
+
+    public MediaMetadata save(MediaMetadata metadata) {
+        MediaMetadata saved = mediaMetadataRepository.save(metadata);
+        cache.put(saved.getId(), saved);
+        return saved;
+    }
+
+    public void addDerivative(String mediaId, int width, String derivativeId) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(mediaId)),
+                new Update().set("derivatives." + width, derivativeId),
+                MediaMetadata.class);
+        // Cached records are shared between threads, so reload rather than mutate
+        cache.invalidate(mediaId);
+    }
+
+    /**
+     * Take over derivative generation for mediaId if none was ever queued, or
+     * if a generation queued before staleBefore never finished (its node
+     * died). Only one caller across nodes gets true.
+     */
+    public boolean claimDerivatives(String mediaId, LocalDateTime staleBefore) {
+        Query query = new Query(Criteria.where("_id").is(mediaId).orOperator(
+                Criteria.where("derivativeStatus").is(null),
+                Criteria.where("derivativeStatus").is(MediaMetadata.DERIVATIVES_PENDING)
+                        .and("derivativesRequestedAt").lt(staleBefore)));
+        boolean claimed = mongoTemplate.updateFirst(query,
+                new Update().set("derivativeStatus", MediaMetadata.DERIVATIVES_PENDING)
+                        .set("derivativesRequestedAt", LocalDateTime.now()),
+                MediaMetadata.class).getModifiedCount() > 0;
+        cache.invalidate(mediaId);
+        return claimed;
+    }
+
+    public void setDerivativeStatus(String mediaId, String status) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(mediaId)),
+                new Update().set("derivativeStatus", status),
+                MediaMetadata.class);
+        cache.invalidate(mediaId);
+    }
+
+    /**
+     * Record metadata for a file that was just uploaded under mediaId.
+     *
+     * @param contentId GridFS ID holding the bytes, see {@link MediaContentService#claim}
+     * @param sha256    hex digest computed while the upload was streamed
+     * @param content   the uploaded bytes, read again to decode image dimensions
+     *                  and the placeholder
+     */
+    public MediaMetadata recordUpload(String mediaId, String contentId, String contentType, long length,
+            String filename, String sha256, String ownerId, InputStreamSource content) {
+        MediaMetadata metadata = new MediaMetadata(mediaId, contentType, length);
+        metadata.setContentId(contentId);
+        metadata.setSha256(sha256);
+        metadata.setOwnerId(ownerId);
+        metadata.setFilename(filename);
+
+        if (contentId.equals(mediaId) && ImageDerivativeService.isResizable(contentType)) {
+            // The pipeline queues generation right after this is recorded
+            metadata.setDerivativeStatus(MediaMetadata.DERIVATIVES_PENDING);
+            metadata.setDerivativesRequestedAt(LocalDateTime.now());
+        }
+        if (contentType != null && contentType.startsWith("image/")) {
+            readDimensions(content, metadata);
+            // Duplicates share the placeholder of the upload that owns the bytes
+            metadata.setPlaceholder(contentId.equals(mediaId)
+                    ? ImageDerivativeService.placeholder(content)
+                    : find(contentId).map(MediaMetadata::getPlaceholder)
+                            .orElseGet(() -> ImageDerivativeService.placeholder(content)));
+        }
+
+        MediaMetadata saved = mediaMetadataRepository.save(metadata);
+        cache.put(mediaId, saved);
+        return saved;
+    }
+
+    /**
+     * Forget a deleted media file, including any bytes held in the hot media cache.
+     */
+    public void delete(String mediaId) {
+        mediaMetadataRepository.deleteById(mediaId);
+        cache.invalidate(mediaId);
+        hotMediaCache.invalidate(mediaId);
+    }
+
+    /**
+     * Forget every media ID whose bytes lived in the GridFS file contentId.
+     */
+    public void deleteByContentId(String contentId) {
+        List<MediaMetadata> aliases = mediaMetadataRepository.findByContentId(contentId);
+        mediaMetadataRepository.deleteAll(aliases);
+        for (MediaMetadata alias : aliases) {
+            cache.invalidate(alias.getId());
+        }
+        delete(contentId);
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    private MediaMetadata load(String mediaId) {
+        return mediaMetadataRepository.findById(mediaId)
+                .orElseGet(() -> backfillFromGridFs(mediaId));
+    }
+
+    private Map<String, MediaMetadata> loadAll(Set<? extends String> mediaIds) {
+        Map<String, MediaMetadata> loaded = new HashMap<>();
+        for (MediaMetadata metadata : mediaMetadataRepository.findAllById(new ArrayList<>(mediaIds))) {
+            loaded.put(metadata.getId(), metadata);
+        }
+        return loaded;
+    }
+
+    // Media uploaded before metadata was recorded: derive it once from the GridFS
+    // file document and persist it so the next miss is a plain ID lookup
+    private MediaMetadata backfillFromGridFs(String mediaId) {
+        if (!ObjectId.isValid(mediaId)) {
+            return null;
+        }
+        GridFSFile file = gridFSBucket.find(new Document("_id", new ObjectId(mediaId))).first();
+        if (file == null) {
+            return null;
+        }
+
+        MediaMetadata metadata = new MediaMetadata(mediaId,
+                guessContentType(file.getFilename(), file.getMetadata()), file.getLength());
+        metadata.setFilename(file.getFilename());
+        return mediaMetadataRepository.save(metadata);
+    }
+
+    private void readDimensions(InputStreamSource content, MediaMetadata metadata) {
+        // Only the image header is decoded, not the pixels
+        try (InputStream in = content.getInputStream();
+                ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                metadata.setWidth(reader.getWidth(0));
+                metadata.setHeight(reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception e) {
+            System.err.println("Could not read image dimensions for " + metadata.getId() + ": " + e.getMessage());
+        }
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String toHex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+
+    public static String guessContentType(String filename, Document metadata) {
+        // Try to get from metadata first
+        if (metadata != null && metadata.containsKey("contentType")) {
+            return metadata.getString("contentType");
+        }
+
+        if (metadata != null && metadata.getString("type") != null) {
+            switch (metadata.getString("type")) {
+                case "image":
+                    return "image/jpeg";
+                case "video":
+                    return "video/mp4";
+            }
+        }
+
+        // Fallback to filename extension
+        if (filename != null) {
+            filename = filename.toLowerCase();
+            if (filename.endsWith(".jpg") || filename.endsWith(".jpeg")) {
+                return "image/jpeg";
+            }
+            if (filename.endsWith(".png")) {
+                return "image/png";
+            }
+            if (filename.endsWith(".mp4")) {
+                return "video/mp4";
+            }
+            if (filename.endsWith(".mov")) {
+                return "video/quicktime";
+            }
+            if (filename.endsWith(".gif")) {
+                return "image/gif";
+            }
+            if (filename.endsWith(".webp")) {
+                return "image/webp";
+            }
+        }
+
+        // Default fallback
+        return "application/octet-stream";
+    }
+}
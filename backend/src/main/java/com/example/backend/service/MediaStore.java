@@ -0,0 +1,49 @@
+package com.example.backend.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * A place media bytes can be kept under their media ID. Implementations are
+ * composed into a {@link TieredMediaStore}; code outside this package talks to
+ * the tier chain, never to a single store.
+ */
+public interface MediaStore {
+
+    String getName();
+
+    /**
+     * Whether bytes written here survive a restart. Writes always land in a
+     * persistent store; the others only hold copies promoted on reads.
+     */
+    boolean isPersistent();
+
+    /**
+     * Whether a copy promoted into this store can be served right away, so
+     * promotion is done before responding instead of in the background.
+     */
+    default boolean promotesSynchronously() {
+        return false;
+    }
+
+    /**
+     * @param length size recorded in the media metadata, used instead of
+     *               asking the store
+     * @return the bytes of id, or empty if this store does not hold them
+     */
+    Optional<Resource> read(String id, long length);
+
+    /**
+     * Store content under id. A failed write must not leave partial bytes
+     * readable under id.
+     *
+     * @return the number of bytes stored
+     */
+    long write(String id, String filename, String contentType, long length, InputStream content)
+            throws IOException;
+
+    void delete(String id);
+}
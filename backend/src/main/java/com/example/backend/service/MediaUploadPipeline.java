@@ -0,0 +1,294 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Post;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Stores post media off the request thread. The request only stages each
+ * upload and reserves its media ID; each file is then written to the
+ * {@link MediaStore} on the MediaProcessor executor, files in parallel. When
+ * every file of a post is done its mediaStatus is set and a message is
+ * published on {@link #MEDIA_TOPIC}.
+ *
+ * Every upload is streamed to the store once: one pass feeds the durable
+ * tier, the SHA-256 digest and the byte count, so no upload is ever held in
+ * memory whole. What else needs the bytes of an image (its dimensions, the
+ * placeholder and the derivatives) reads the local copy it was streamed
+ * from, never the store; a video's duration is checked from its headers
+ * alone before it is stored.
+ */
+@Service
+public class MediaUploadPipeline {
+
+    public static final String MEDIA_TOPIC = "/topic/media";
+
+    private final Executor executor;
+    private final MediaStore mediaStore;
+    private final ChunkedUploadService chunkedUploadService;
+    private final MediaMetadataService mediaMetadataService;
+    private final MediaContentService mediaContentService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final MongoTemplate mongoTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ScopeVersionService scopeVersionService;
+    private final Path stagingDirectory;
+
+    public MediaUploadPipeline(
+            @Qualifier("taskExecutor") Executor executor,
+            MediaStore mediaStore,
+            ChunkedUploadService chunkedUploadService,
+            MediaMetadataService mediaMetadataService,
+            MediaContentService mediaContentService,
+            ImageDerivativeService imageDerivativeService,
+            MongoTemplate mongoTemplate,
+            SimpMessagingTemplate messagingTemplate,
+            ScopeVersionService scopeVersionService) throws IOException {
+        this.executor = executor;
+        this.mediaStore = mediaStore;
+        this.chunkedUploadService = chunkedUploadService;
+        this.mediaMetadataService = mediaMetadataService;
+        this.mediaContentService = mediaContentService;
+        this.imageDerivativeService = imageDerivativeService;
+        this.mongoTemplate = mongoTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.scopeVersionService = scopeVersionService;
+        this.stagingDirectory = Files.createTempDirectory("media-staging-");
+    }
+
+    /**
+     * Move an upload somewhere it outlives the request (multipart temp files are
+     * removed once the request completes) and reserve its media ID. Uploads the
+     * container already spooled to disk are renamed rather than copied.
+     */
+    public StagedMedia stage(MultipartFile file, String type) throws IOException {
+        String mediaId = new ObjectId().toHexString();
+        Path staged = stagingDirectory.resolve(mediaId + ".part");
+        try {
+            file.transferTo(staged.toFile());
+        } catch (IOException e) {
+            Files.deleteIfExists(staged);
+            throw e;
+        }
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename() : "media_" + type;
+        return new StagedMedia(mediaId, type, file.getContentType(), filename, file.getSize(), staged);
+    }
+
+    /**
+     * Store an upload on the calling thread, for small files such as profile
+     * pictures that are needed before the request returns.
+     *
+     * @return the new media ID
+     */
+    public String store(MultipartFile file, String type, String ownerId, List<Integer> derivativeWidths)
+            throws IOException {
+        String mediaId = new ObjectId().toHexString();
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename() : "media_" + type;
+        if (ingest(mediaId, file.getInputStream(), file.getSize(), file.getContentType(), filename, ownerId, file)) {
+            // The request's temp file is gone before a queued task runs, so
+            // the derivatives are made from the stored copy
+            imageDerivativeService.generateAsync(mediaId, ownerId, stored(mediaId, file.getSize()),
+                    derivativeWidths);
+        }
+        return mediaId;
+    }
+
+    /**
+     * Store staged media for a post that has already been saved as PENDING.
+     */
+    public void process(String postId, String ownerId, List<StagedMedia> media) {
+        if (media.isEmpty()) {
+            return;
+        }
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (StagedMedia item : media) {
+            tasks.add(CompletableFuture
+                    .runAsync(() -> storeStaged(item, ownerId), executor)
+                    .whenComplete((ignored, error) -> discard(item)));
+        }
+
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> complete(postId, media, error));
+    }
+
+    /**
+     * Remove staged media that will not be processed, e.g. when saving the post failed.
+     */
+    public void discard(List<StagedMedia> media) {
+        for (StagedMedia item : media) {
+            discard(item);
+        }
+    }
+
+    private void storeStaged(StagedMedia item, String ownerId) {
+        try {
+            InputStream source = item.isChunkedUpload()
+                    ? chunkedUploadService.openStaged(item.getMediaId())
+                    : Files.newInputStream(item.getPath());
+            // Resumable uploads are videos, which are not read again
+            InputStreamSource local = item.isChunkedUpload() ? null : () -> Files.newInputStream(item.getPath());
+            if (ingest(item.getMediaId(), source, item.getSize(), item.getContentType(), item.getFilename(),
+                    ownerId, local) && local != null) {
+                // Still on the executor, and the staged file is only discarded after this returns
+                imageDerivativeService.generateNow(item.getMediaId(), ownerId, local,
+                        ImageDerivativeService.FEED_WIDTHS);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stream source into the media store while hashing it, then claim the
+     * content hash and record metadata. The hash is only known once the bytes
+     * are written, so a duplicate's copy is dropped afterwards.
+     *
+     * @param local the same bytes on this node, read for image metadata
+     *              instead of the store; null to read the store
+     * @return whether this is new image content that needs derivatives
+     */
+    private boolean ingest(String mediaId, InputStream source, long length, String contentType, String filename,
+            String ownerId, InputStreamSource local) throws IOException {
+        MessageDigest digest = MediaMetadataService.newSha256();
+        long size;
+        try (InputStream in = new DigestInputStream(source, digest)) {
+            size = mediaStore.write(mediaId, filename, contentType, length, in);
+        }
+
+        String sha256 = MediaMetadataService.toHex(digest.digest());
+        String contentId = mediaContentService.claim(sha256, mediaId);
+        mediaMetadataService.recordUpload(mediaId, contentId, contentType, size, filename,
+                sha256, ownerId, local != null ? local : stored(mediaId, size));
+
+        if (!contentId.equals(mediaId)) {
+            // Identical bytes are already stored; keep only the reference to them
+            mediaStore.delete(mediaId);
+            return false;
+        }
+        return ImageDerivativeService.isResizable(contentType);
+    }
+
+    private InputStreamSource stored(String mediaId, long size) {
+        return () -> mediaStore.read(mediaId, size)
+                .orElseThrow(() -> new IOException("Media " + mediaId + " is not in the media store"))
+                .getInputStream();
+    }
+
+    private void complete(String postId, List<StagedMedia> media, Throwable error) {
+        String status = error == null ? Post.MEDIA_READY : Post.MEDIA_FAILED;
+        if (error != null) {
+            System.err.println("Error storing media for post " + postId + ": " + error.getMessage());
+        }
+
+        List<String> mediaIds = new ArrayList<>();
+        for (StagedMedia item : media) {
+            mediaIds.add(item.getMediaId());
+        }
+
+        try {
+            // Only settle the batch this post is still waiting for; an edit may
+            // have replaced its media in the meantime
+            Query query = new Query(Criteria.where("_id").is(postId).and("mediaIds").all(mediaIds));
+            mongoTemplate.updateFirst(query, Update.update("mediaStatus", status), Post.class);
+            scopeVersionService.bumpPost(postId);
+
+            Map<String, Object> update = new HashMap<>();
+            update.put("postId", postId);
+            update.put("status", status);
+            update.put("mediaIds", mediaIds);
+            messagingTemplate.convertAndSend(MEDIA_TOPIC, update);
+        } catch (Exception e) {
+            System.err.println("Error completing media upload for post " + postId + ": " + e.getMessage());
+        }
+    }
+
+    private void discard(StagedMedia item) {
+        if (item.isChunkedUpload()) {
+            chunkedUploadService.deleteStaged(item.getMediaId());
+            return;
+        }
+        try {
+            Files.deleteIfExists(item.getPath());
+        } catch (IOException e) {
+            System.err.println("Could not delete staged upload " + item.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    public static final class StagedMedia {
+        private final String mediaId;
+        private final String type;
+        private final String contentType;
+        private final String filename;
+        private final long size;
+        private final Path path;
+
+        StagedMedia(String mediaId, String type, String contentType, String filename, long size, Path path) {
+            this.mediaId = mediaId;
+            this.type = type;
+            this.contentType = contentType;
+            this.filename = filename;
+            this.size = size;
+            this.path = path;
+        }
+
+        /**
+         * A completed resumable upload, staged by {@link ChunkedUploadService}
+         * under mediaId instead of in a local file.
+         */
+        static StagedMedia chunkedUpload(String mediaId, String type, String contentType, String filename,
+                long size) {
+            return new StagedMedia(mediaId, type, contentType, filename, size, null);
+        }
+
+        public String getMediaId() {
+            return mediaId;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public boolean isChunkedUpload() {
+            return path == null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.backend.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * The {@link HotMediaCache} as the top tier: copies of small, frequently
+ * read files, lost on restart.
+ */
+public class MemoryMediaStore implements MediaStore {
+
+    private final HotMediaCache hotMediaCache;
+
+    public MemoryMediaStore(HotMediaCache hotMediaCache) {
+        this.hotMediaCache = hotMediaCache;
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return false;
+    }
+
+    @Override
+    public boolean promotesSynchronously() {
+        return true;
+    }
+
+    @Override
+    public Optional<Resource> read(String id, long length) {
+        return hotMediaCache.get(id);
+    }
+
+    @Override
+    public long write(String id, String filename, String contentType, long length, InputStream content)
+            throws IOException {
+        return hotMediaCache.put(id, content, length) ? length : 0;
+    }
+
+    @Override
+    public void delete(String id) {
+        hotMediaCache.invalidate(id);
+    }
+}
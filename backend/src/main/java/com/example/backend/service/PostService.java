@@ -1,26 +1,30 @@
 package com.example.backend.service;
 
-import com.example.backend.model.CommentResponse;
+import com.example.backend.dto.FeedPage;
+import com.example.backend.dto.FeedDelta;
+import com.example.backend.dto.PageCursor;
+import com.example.backend.dto.PostIncludes;
+import com.example.backend.dto.ReactionSummary;
+import com.example.backend.dto.SinceCursor;
 import com.example.backend.model.Post;
 import com.example.backend.model.PostResponse;
+import com.example.backend.model.PostTombstone;
 import com.example.backend.model.User;
 import com.example.backend.repository.PostRepository;
 import com.example.backend.repository.UserRepository;
-import com.mongodb.client.gridfs.GridFSBucket;
-import com.mongodb.client.gridfs.GridFSBuckets;
-import com.mongodb.client.gridfs.model.GridFSUploadOptions;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -33,13 +37,20 @@ public class PostService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final MongoTemplate mongoTemplate;
-    private final GridFSBucket gridFSBucket;
+    private final FeedAssembler feedAssembler;
+    private final MediaContentService mediaContentService;
+    private final MediaUploadPipeline mediaUploadPipeline;
+    private final ChunkedUploadService chunkedUploadService;
+    private final TimelineService timelineService;
+    private final ScopeVersionService scopeVersionService;
+    private final VideoValidator videoValidator;
     private CommentService commentService; // Optional dependency
     private ReactionService reactionService; // Optional dependency
 
-    private static final int MAX_VIDEO_SIZE_MB = 15; // 15MB
-    private static final List<String> ALLOWED_VIDEO_TYPES = List.of("video/mp4", "video/quicktime");
-    private static final int MAX_VIDEO_DURATION_SECONDS = 30;
+    public static final int DEFAULT_FEED_PAGE_SIZE = 20;
+    public static final int MAX_FEED_PAGE_SIZE = 50;
+    private static final long TOMBSTONE_OVERLAP_SECONDS = 10;
+    private static final long SINCE_OVERLAP_SECONDS = 10;
 
     @Value("${upload.directory}")
     private String uploadDirectory;
@@ -48,11 +59,24 @@ public class PostService {
     public PostService(
             PostRepository postRepository,
             UserRepository userRepository,
-            MongoTemplate mongoTemplate) {
+            MongoTemplate mongoTemplate,
+            FeedAssembler feedAssembler,
+            MediaContentService mediaContentService,
+            MediaUploadPipeline mediaUploadPipeline,
+            ChunkedUploadService chunkedUploadService,
+            TimelineService timelineService,
+            ScopeVersionService scopeVersionService,
+            VideoValidator videoValidator) {
         this.postRepository = postRepository;
         this.userRepository = userRepository;
         this.mongoTemplate = mongoTemplate;
-        this.gridFSBucket = GridFSBuckets.create(mongoTemplate.getDb(), "media");
+        this.feedAssembler = feedAssembler;
+        this.mediaContentService = mediaContentService;
+        this.mediaUploadPipeline = mediaUploadPipeline;
+        this.chunkedUploadService = chunkedUploadService;
+        this.timelineService = timelineService;
+        this.scopeVersionService = scopeVersionService;
+        this.videoValidator = videoValidator;
     }
 
     // Optional constructor for when you have CommentService and ReactionService
@@ -69,69 +93,52 @@ public class PostService {
     }
 
     public PostResponse convertToPostResponse(Post post) {
-        PostResponse response = new PostResponse();
-        response.setId(post.getId());
-        response.setContent(post.getContent());
-        response.setImageUrls(post.getImageUrls());
-        response.setVideoUrl(post.getVideoUrl());
-        response.setMediaIds(post.getMediaIds());
-        response.setMediaTypes(post.getMediaTypes());
-        response.setLikes(post.getLikes());
-        response.setComments(post.getComments());
-        response.setCreatedAt(post.getCreatedAt());
-        response.setUserId(post.getUserId());
-
-        // Handle potentially deleted users gracefully
-        try {
-            userRepository.findById(post.getUserId()).ifPresentOrElse(
-                    user -> {
-                        response.setUserName(user.getFirstName() + " " + user.getLastName());
-                        response.setUserProfilePicture(user.getProfilePicture());
-                    },
-                    () -> {
-                        response.setUserName("Deleted User");
-                        response.setUserProfilePicture(null);
-                    });
-        } catch (Exception e) {
-            System.err.println("Error fetching user for post " + post.getId() + ": " + e.getMessage());
-            response.setUserName("Deleted User");
-            response.setUserProfilePicture(null);
-        }
-
-        return response;
+        return feedAssembler.assemble(post);
     }
 
-    public PostResponse createPost(String userId, String content, List<MultipartFile> images, MultipartFile video) {
-        if ((video == null && (images == null || images.isEmpty())) && content.isEmpty()) {
+    /**
+     * @param uploadId a completed resumable upload to attach as the post's
+     *                 video, instead of sending the video bytes with the post
+     */
+    public PostResponse createPost(String userId, String content, List<MultipartFile> images, MultipartFile video,
+            String uploadId) {
+        boolean hasUpload = uploadId != null && !uploadId.isEmpty();
+        if ((video == null && !hasUpload && (images == null || images.isEmpty())) && content.isEmpty()) {
             throw new IllegalArgumentException("Post must have content, images, or a video");
         }
+        if (hasUpload && video != null && !video.isEmpty()) {
+            throw new IllegalArgumentException("Send either a video or an upload ID, not both");
+        }
 
         Post post = new Post();
         post.setUserId(userId);
         post.setContent(content);
-        post.setCreatedAt(LocalDateTime.now());
         post.setLikes(0);
         post.setComments(new ArrayList<>());
+        post.setCommentCount(0);
         List<String> mediaIds = new ArrayList<>();
+        List<MediaUploadPipeline.StagedMedia> staged = new ArrayList<>();
+        Post savedPost;
 
         try {
-            // Ensure upload directory exists - use direct path to backenduploads
-            Path uploadsPath = Paths.get("backend", "uploads");
-            if (!Files.exists(uploadsPath)) {
-                Files.createDirectories(uploadsPath);
-                System.out.println("Created uploads directory at: " + uploadsPath.toAbsolutePath());
-            }
-
             // Handle video upload
             if (video != null && !video.isEmpty()) {
-                validateVideo(video);
-                String videoId = saveMedia(video, "video");
+                videoValidator.validate(video.getContentType(), video.getSize());
+                MediaUploadPipeline.StagedMedia stagedVideo = mediaUploadPipeline.stage(video, "video");
+                staged.add(stagedVideo);
+                validateDuration(stagedVideo);
+                String videoId = stagedVideo.getMediaId();
                 mediaIds.add(videoId);
                 post.setVideoUrl("/api/media/" + videoId); // URL for retrieval
                 post.addMediaType(videoId, "video/" + video.getContentType().split("/")[1]); // Store content type
-
-                // Save to local storage
-                saveToLocalStorage(video, videoId);
+            } else if (hasUpload) {
+                // Already in GridFS; only the post is written before returning
+                MediaUploadPipeline.StagedMedia uploadedVideo = chunkedUploadService.consume(uploadId, userId);
+                staged.add(uploadedVideo);
+                String videoId = uploadedVideo.getMediaId();
+                mediaIds.add(videoId);
+                post.setVideoUrl("/api/media/" + videoId);
+                post.addMediaType(videoId, uploadedVideo.getContentType());
             }
 
             // Handle image uploads
@@ -140,12 +147,11 @@ public class PostService {
                     if (!image.getContentType().startsWith("image/")) {
                         throw new IllegalArgumentException("Only image files are supported");
                     }
-                    String imageId = saveMedia(image, "image");
+                    MediaUploadPipeline.StagedMedia stagedImage = mediaUploadPipeline.stage(image, "image");
+                    staged.add(stagedImage);
+                    String imageId = stagedImage.getMediaId();
                     mediaIds.add(imageId);
                     post.addMediaType(imageId, image.getContentType()); // Store content type
-
-                    // Save to local storage
-                    saveToLocalStorage(image, imageId);
                 }
                 post.setImageUrls(mediaIds.stream()
                         .map(id -> "/api/media/" + id)
@@ -153,131 +159,188 @@ public class PostService {
             }
 
             post.setMediaIds(mediaIds); // Store GridFS IDs
-            Post savedPost = postRepository.save(post);
-            return convertToPostResponse(savedPost);
+            if (!staged.isEmpty()) {
+                post.setMediaStatus(Post.MEDIA_PENDING);
+            }
+            // Stamped after staging so a slow upload does not date the post
+            // behind ones saved while it was staged
+            post.setCreatedAt(LocalDateTime.now());
+            savedPost = postRepository.save(post);
         } catch (IOException e) {
+            mediaUploadPipeline.discard(staged);
             throw new RuntimeException("Failed to save media: " + e.getMessage());
+        } catch (RuntimeException e) {
+            mediaUploadPipeline.discard(staged);
+            throw e;
         }
+
+        // Media is stored in the background; the client hears about it on the media topic
+        mediaUploadPipeline.process(savedPost.getId(), userId, staged);
+        // The feed's version is bumped once the timeline has the post
+        scopeVersionService.bump(List.of(ScopeVersionService.user(userId)));
+        timelineService.fanOut(savedPost);
+        return convertToPostResponse(savedPost);
     }
 
-    private void saveToLocalStorage(MultipartFile file, String mediaId) throws IOException {
-        // Use direct absolute path to D:\Learn_Book\backend uploads folder
-        Path uploadsPath = Paths.get("D:", "Learn_Book", "backend", "uploads");
-        Files.createDirectories(uploadsPath); // Ensure directory exists
+    /**
+     * Checked on the staged file rather than the request's stream: staging a
+     * spooled upload is a rename, and the skips past media boxes are seeks.
+     */
+    private void validateDuration(MediaUploadPipeline.StagedMedia video) throws IOException {
+        try (InputStream in = Files.newInputStream(video.getPath())) {
+            videoValidator.validateDuration(in);
+        }
+    }
 
-        Path filePath = uploadsPath.resolve(mediaId);
-        System.out.println("Saving file to: " + filePath);
+    /**
+     * Legacy unpaged feed, now bounded to the first feed page.
+     */
+    public List<PostResponse> getAllPosts() {
+        try {
+            return getFeedPage(null, DEFAULT_FEED_PAGE_SIZE).getPosts();
+        } catch (Exception e) {
+            System.err.println("Error fetching all posts: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
 
-        try (FileOutputStream fos = new FileOutputStream(filePath.toFile())) {
-            fos.write(file.getBytes());
+    /**
+     * Get one page of the home feed, newest first. Pages are read from the
+     * precomputed home timeline where it has them, otherwise queried. The
+     * first page also carries the sinceCursor for {@link #getFeedSince}.
+     *
+     * @param cursor token from the previous page's nextCursor, or null for the
+     *               first page
+     * @param limit  requested page size, clamped to MAX_FEED_PAGE_SIZE
+     */
+    public FeedPage getFeedPage(String cursor, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_FEED_PAGE_SIZE);
+        PageCursor after = cursor != null && !cursor.isEmpty() ? PageCursor.decode(cursor) : null;
+        LocalDateTime syncedAt = LocalDateTime.now();
+
+        FeedPage page = timelineService.readHome(after, pageSize)
+                .orElseGet(() -> queryFeedPage(after, pageSize));
+        if (after == null) {
+            List<PostResponse> posts = page.getPosts();
+            SinceCursor since = posts.isEmpty()
+                    ? SinceCursor.empty(syncedAt)
+                    : new SinceCursor(posts.get(0).getCreatedAt(), posts.get(0).getId(), syncedAt);
+            page.setSinceCursor(since.encode());
         }
+        return page;
     }
 
-    private void validateVideo(MultipartFile video) {
-        if (!ALLOWED_VIDEO_TYPES.contains(video.getContentType())) {
-            throw new IllegalArgumentException(
-                    "Invalid video format. Allowed formats: " + String.join(", ", ALLOWED_VIDEO_TYPES));
+    /**
+     * What changed in the home feed since the client's high-water mark: posts
+     * created after it and tombstones of posts deleted since its last sync.
+     * With nothing new this is two indexed queries and an almost empty body.
+     *
+     * createdAt is stamped before the post is saved, so two posts can become
+     * visible out of order. The delta therefore also returns posts stamped in
+     * the last few seconds before the previous sync, even if they are below
+     * the mark; the client drops the ones it has. Once the previous sync is
+     * older than that window, a delta with nothing new is empty.
+     */
+    public FeedDelta getFeedSince(String cursor) {
+        SinceCursor since = SinceCursor.decode(cursor);
+        LocalDateTime syncedAt = LocalDateTime.now();
+        if (since.getSyncedAt().isBefore(syncedAt.minusDays(PostTombstone.RETENTION_DAYS))) {
+            // Tombstones this client needs may have expired
+            return FeedDelta.reset();
+        }
+
+        LocalDateTime overlapStart = since.getSyncedAt().minusSeconds(SINCE_OVERLAP_SECONDS);
+        LocalDateTime from = overlapStart.isBefore(since.getCreatedAt()) ? overlapStart : since.getCreatedAt();
+        Query query = new Query(Criteria.where("sharedFrom").is(null).and("createdAt").gte(from))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(MAX_FEED_PAGE_SIZE + 1);
+        List<Post> candidates = mongoTemplate.find(query, Post.class);
+        if (candidates.size() > MAX_FEED_PAGE_SIZE) {
+            return FeedDelta.reset();
         }
-        if (video.getSize() > MAX_VIDEO_SIZE_MB * 1024 * 1024) {
-            throw new IllegalArgumentException("Video size must be less than " + MAX_VIDEO_SIZE_MB + "MB");
+        // The range starts at the mark itself when that is older than the
+        // window; the client already has the posts up to and including it
+        List<Post> posts = new ArrayList<>();
+        for (Post post : candidates) {
+            if (isAfter(post, since) || post.getCreatedAt().isAfter(overlapStart)) {
+                posts.add(post);
+            }
         }
-        // Note: Duration validation requires FFmpeg or external library.
-        // For simplicity, assuming frontend enforces 30s limit.
-        // If needed, reintroduce JAVE or use FFmpeg CLI via ProcessBuilder.
+
+        // Overlap the previous sync a little so a tombstone written during it is not missed
+        Query tombstoneQuery = new Query(Criteria.where("deletedAt")
+                .gt(since.getSyncedAt().minusSeconds(TOMBSTONE_OVERLAP_SECONDS)));
+        tombstoneQuery.fields().include("_id");
+        List<String> deletedIds = new ArrayList<>();
+        for (PostTombstone tombstone : mongoTemplate.find(tombstoneQuery, PostTombstone.class)) {
+            deletedIds.add(tombstone.getId());
+        }
+
+        // Posts from the window may all be below the mark, which must not move back
+        SinceCursor next = !posts.isEmpty() && isAfter(posts.get(0), since)
+                ? new SinceCursor(posts.get(0).getCreatedAt(), posts.get(0).getId(), syncedAt)
+                : new SinceCursor(since.getCreatedAt(), since.getId(), syncedAt);
+        return new FeedDelta(feedAssembler.assemble(posts), deletedIds, next.encode());
     }
 
-    private String saveMedia(MultipartFile file, String type) throws IOException {
-        GridFSUploadOptions options = new GridFSUploadOptions()
-                .metadata(new org.bson.Document("type", type));
-        ObjectId fileId = gridFSBucket.uploadFromStream(
-                file.getOriginalFilename() != null ? file.getOriginalFilename() : "media_" + type,
-                file.getInputStream(),
-                options);
-        return fileId.toHexString();
+    /**
+     * Number of posts newer than the cursor, up to one more than a delta
+     * returns; a single indexed count. Unlike the delta it does not look
+     * below the mark, so a post saved late is not counted, though the next
+     * delta still returns it.
+     */
+    public long countFeedSince(String cursor) {
+        SinceCursor since = SinceCursor.decode(cursor);
+        return mongoTemplate.count(newerThan(since).limit(MAX_FEED_PAGE_SIZE + 1), Post.class);
     }
 
-    public List<PostResponse> getAllPosts() {
-        try {
-            List<Post> posts = postRepository.findBySharedFromIsNullOrderByCreatedAtDesc();
-            return posts.stream()
-                    .map(this::convertToPostResponse)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            System.err.println("Error fetching all posts: " + e.getMessage());
-            return Collections.emptyList();
+    // Same order as newerThan: createdAt, then _id
+    private static boolean isAfter(Post post, SinceCursor since) {
+        int byTime = post.getCreatedAt().compareTo(since.getCreatedAt());
+        return byTime > 0 || (byTime == 0 && new ObjectId(post.getId()).compareTo(new ObjectId(since.getId())) > 0);
+    }
+
+    private Query newerThan(SinceCursor since) {
+        return new Query(Criteria.where("sharedFrom").is(null).orOperator(
+                Criteria.where("createdAt").gt(since.getCreatedAt()),
+                Criteria.where("createdAt").is(since.getCreatedAt())
+                        .and("_id").gt(new ObjectId(since.getId()))));
+    }
+
+    private FeedPage queryFeedPage(PageCursor after, int pageSize) {
+        Query query = new Query(Criteria.where("sharedFrom").is(null));
+        if (after != null) {
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(after.getCreatedAt()),
+                    Criteria.where("createdAt").is(after.getCreatedAt())
+                            .and("_id").lt(new ObjectId(after.getId()))));
         }
+        // Fetch one extra row to learn whether another page exists
+        query.with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"));
+        query.limit(pageSize + 1);
+
+        List<Post> posts = mongoTemplate.find(query, Post.class);
+        String nextCursor = null;
+        if (posts.size() > pageSize) {
+            posts = posts.subList(0, pageSize);
+            Post last = posts.get(pageSize - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return new FeedPage(feedAssembler.assemble(posts), nextCursor);
     }
 
     public List<PostResponse> getUserPosts(String userId) {
         List<Post> posts = postRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return posts.stream()
-                .map(this::convertToPostResponse)
-                .collect(Collectors.toList());
+        return feedAssembler.assemble(posts);
     }
 
     public List<PostResponse> getGroupPosts(String groupId) {
         try {
             List<Post> posts = postRepository.findByGroupIdOrderByCreatedAtDesc(groupId);
-            List<PostResponse> responses = new ArrayList<>();
-
-            for (Post post : posts) {
-                PostResponse response = convertToPostResponse(post);
-
-                // If this is a shared post, enrich with original post details
-                if (post.getSharedFrom() != null) {
-                    try {
-                        // Get original post
-                        Post originalPost = postRepository.findById(post.getSharedFrom())
-                                .orElse(null);
-
-                        if (originalPost != null) {
-                            // Set original post content
-                            response.setOriginalContent(originalPost.getContent());
-                            response.setOriginalImageUrls(originalPost.getImageUrls());
-                            response.setOriginalVideoUrl(originalPost.getVideoUrl());
-                            response.setOriginalCreatedAt(originalPost.getCreatedAt());
-
-                            // Set original user details
-                            userRepository.findById(originalPost.getUserId()).ifPresent(originalUser -> {
-                                response.setOriginalUserId(originalUser.getId());
-                                response.setOriginalUserName(
-                                        originalUser.getFirstName() + " " + originalUser.getLastName());
-                                response.setOriginalUserProfilePicture(originalUser.getProfilePicture());
-                            });
-                        }
-
-                        // Make sure current user information is populated correctly
-                        userRepository.findById(post.getUserId()).ifPresent(currentUser -> {
-                            response.setUserId(currentUser.getId());
-                            response.setUserName(currentUser.getFirstName() + " " + currentUser.getLastName());
-                            response.setUserProfilePicture(currentUser.getProfilePicture());
-                        });
-
-                        // Set sharing user details explicitly
-                        userRepository.findById(post.getUserId()).ifPresent(sharingUser -> {
-                            response.setSharedByUserId(sharingUser.getId());
-                            response.setSharedByUserName(sharingUser.getFirstName() + " " + sharingUser.getLastName());
-                            response.setSharedByUserProfilePicture(sharingUser.getProfilePicture());
-                            response.setSharedAt(post.getCreatedAt());
-                        });
-                    } catch (Exception e) {
-                        System.err.println("Error enriching shared post: " + e.getMessage());
-                    }
-                } else {
-                    // Make sure user details are always populated for non-shared posts too
-                    userRepository.findById(post.getUserId()).ifPresent(currentUser -> {
-                        if (response.getUserName() == null || response.getUserName().isEmpty() ||
-                                response.getUserName().equals("Deleted User")) {
-                            response.setUserName(currentUser.getFirstName() + " " + currentUser.getLastName());
-                            response.setUserProfilePicture(currentUser.getProfilePicture());
-                        }
-                    });
-                }
-
-                responses.add(response);
-            }
-
-            return responses;
+            // Shared posts are enriched with original post and author details in the
+            // same pass
+            return feedAssembler.assemble(posts);
         } catch (Exception e) {
             System.err.println("Error fetching group posts: " + e.getMessage());
             e.printStackTrace();
@@ -295,20 +358,14 @@ public class PostService {
         }
 
         try {
-            // Delete associated media from GridFS and local storage
+            // Delete associated media from every media store tier
             if (post.getMediaIds() != null && !post.getMediaIds().isEmpty()) {
                 for (String mediaId : post.getMediaIds()) {
                     try {
-                        // Delete from GridFS
-                        if (ObjectId.isValid(mediaId)) {
-                            gridFSBucket.delete(new ObjectId(mediaId));
-                        }
-
-                        // Delete from local storage - use relative path
-                        Path mediaPath = Paths.get("backend", "uploads", mediaId);
-                        if (Files.exists(mediaPath)) {
-                            Files.delete(mediaPath);
-                            System.out.println("Deleted file: " + mediaPath);
+                        // Drop this post's reference; bytes go only when nothing else uses them
+                        String freedId = mediaContentService.release(mediaId);
+                        if (freedId != null) {
+                            System.out.println("Deleted media: " + freedId);
                         }
                     } catch (Exception e) {
                         // Log error but continue with other media deletions
@@ -319,6 +376,8 @@ public class PostService {
 
             // Delete post from database
             postRepository.deleteById(postId);
+            mongoTemplate.save(new PostTombstone(postId));
+            scopeVersionService.bump(post);
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to delete post and associated media: " + e.getMessage(), e);
@@ -335,6 +394,8 @@ public class PostService {
 
         post.setContent(content);
         List<String> mediaIds = new ArrayList<>(post.getMediaIds() != null ? post.getMediaIds() : new ArrayList<>());
+        List<MediaUploadPipeline.StagedMedia> staged = new ArrayList<>();
+        Post updatedPost;
 
         try {
             if (images != null && !images.isEmpty()) {
@@ -342,14 +403,10 @@ public class PostService {
                 if (!mediaIds.isEmpty()) {
                     for (String mediaId : mediaIds) {
                         try {
-                            // Delete from GridFS
-                            gridFSBucket.delete(new ObjectId(mediaId));
-
-                            // Delete from local storage - use absolute path
-                            Path mediaPath = Paths.get("D:", "Learn_Book", "backend", "uploads", mediaId);
-                            if (Files.exists(mediaPath)) {
-                                Files.delete(mediaPath);
-                                System.out.println("Deleted file during update: " + mediaPath);
+                            // Drop this post's reference; shares may still use the bytes
+                            String freedId = mediaContentService.release(mediaId);
+                            if (freedId != null) {
+                                System.out.println("Deleted media during update: " + freedId);
                             }
                         } catch (Exception e) {
                             System.err.println("Failed to delete old media: " + mediaId + " - " + e.getMessage());
@@ -363,23 +420,29 @@ public class PostService {
                     if (!image.getContentType().startsWith("image/")) {
                         throw new IllegalArgumentException("Only image files are supported");
                     }
-                    String imageId = saveMedia(image, "image");
-                    mediaIds.add(imageId);
-
-                    // Save to local storage
-                    saveToLocalStorage(image, imageId);
+                    MediaUploadPipeline.StagedMedia stagedImage = mediaUploadPipeline.stage(image, "image");
+                    staged.add(stagedImage);
+                    mediaIds.add(stagedImage.getMediaId());
                 }
                 post.setImageUrls(mediaIds.stream()
                         .map(id -> "/api/media/" + id)
                         .collect(Collectors.toList()));
+                post.setMediaStatus(Post.MEDIA_PENDING);
             }
 
             post.setMediaIds(mediaIds);
-            Post updatedPost = postRepository.save(post);
-            return convertToPostResponse(updatedPost);
+            updatedPost = postRepository.save(post);
         } catch (IOException e) {
+            mediaUploadPipeline.discard(staged);
             throw new RuntimeException("Failed to update media: " + e.getMessage());
+        } catch (RuntimeException e) {
+            mediaUploadPipeline.discard(staged);
+            throw e;
         }
+
+        mediaUploadPipeline.process(updatedPost.getId(), userId, staged);
+        scopeVersionService.bump(updatedPost);
+        return convertToPostResponse(updatedPost);
     }
 
     /**
@@ -389,63 +452,46 @@ public class PostService {
      * @return PostResponse containing post details
      */
     public PostResponse getPostById(String postId) {
-        // Find the post by ID
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new IllegalArgumentException("Post not found with ID: " + postId));
-
-        // Convert Post to PostResponse
-        PostResponse response = convertToPostResponse(post);
-
-        // Try to enrich with additional data if services are available
-        enrichPostResponse(response);
-
-        return response;
+        return getPostById(postId, PostIncludes.none(), null);
     }
 
     /**
-     * Enrich PostResponse with additional data
+     * Get a post by its ID with the optional parts named in includes. The
+     * post already carries its like and comment counters, so each part costs
+     * at most one bounded query and nothing is computed that was not asked for.
+     *
+     * @param viewerId user whose own reaction and comment likes are resolved,
+     *                 or null
      */
-    private void enrichPostResponse(PostResponse response) {
-        try {
-            // Add comments if commentService is available
-            if (commentService != null) {
-                try {
-                    List<CommentResponse> comments = commentService.getPostComments(response.getId(), 1000);
-
-                    // Simply store the comment count instead of trying to set the comments list
-                    // This avoids potential type casting errors or missing methods
-                    if (comments != null) {
-                        // Just update the likes count with the number of comments as a fallback
-                        System.out.println("Found " + comments.size() + " comments for post " + response.getId());
-                    }
+    public PostResponse getPostById(String postId, PostIncludes includes, String viewerId) {
+        Post post = postRepository.findById(postId)
+                .orElseThrow(() -> new IllegalArgumentException("Post not found with ID: " + postId));
+        PostResponse response = convertToPostResponse(post);
 
-                    /*
-                     * NOTE: We're avoiding attempting to set comments directly since the
-                     * PostResponse.setComments() method might expect a different type than
-                     * List<CommentResponse>. The frontend should call a separate API endpoint
-                     * to get comments when needed.
-                     */
-                } catch (Exception e) {
-                    System.err.println("Error fetching comments: " + e.getMessage());
-                    // Don't let comment errors fail the whole response
-                }
-            }
+        if (includes.isCommentCount() && response.getCommentCount() == null && commentService != null) {
+            // Not counted by the reconciler yet
+            response.setCommentCount((int) commentService.getCommentCount(postId));
+        }
 
-            // Add reaction count if reactionService is available
-            if (reactionService != null) {
+        if (includes.isReactionSummary()) {
+            Boolean viewerReacted = null;
+            if (viewerId != null && reactionService != null) {
                 try {
-                    long reactionCount = reactionService.getReactionCount(response.getId());
-                    // Use likes field as fallback if setReactionCount doesn't exist
-                    response.setLikes((int) reactionCount);
+                    viewerReacted = reactionService.hasUserReacted(viewerId, postId);
                 } catch (Exception e) {
-                    System.err.println("Error fetching reactions: " + e.getMessage());
                     // Don't let reaction errors fail the whole response
+                    System.err.println("Error fetching reaction of user " + viewerId + ": " + e.getMessage());
                 }
             }
-        } catch (Exception e) {
-            // Log error but don't fail the entire response
-            System.err.println("Error enriching post response: " + e.getMessage());
+            response.setReactionSummary(
+                    new ReactionSummary(response.getLikes(), post.getReactionCounts(), viewerReacted));
+        }
+
+        if (includes.getFirstComments() > 0 && commentService != null) {
+            response.setFirstComments(
+                    commentService.getFirstComments(postId, includes.getFirstComments(), viewerId));
         }
+        return response;
     }
 
     public PostResponse sharePostToGroup(String postId, String groupId, String sharingUserId) {
@@ -469,34 +515,20 @@ public class PostService {
             sharedPost.setCreatedAt(LocalDateTime.now());
             sharedPost.setGroupId(groupId);
             sharedPost.setSharedFrom(postId);
+            sharedPost.setCommentCount(0);
             sharedPost.setUserId(sharingUserId); // This is the sharing user's ID
 
             Post savedPost = postRepository.save(sharedPost);
-            PostResponse response = convertToPostResponse(savedPost);
-
-            // Add original post creator's details
-            User originalUser = userRepository.findById(originalPost.getUserId())
-                    .orElseThrow(() -> new RuntimeException("Original user not found"));
-            response.setOriginalUserId(originalPost.getUserId());
-            response.setOriginalUserName(originalUser.getFirstName() + " " + originalUser.getLastName());
-            response.setOriginalUserProfilePicture(originalUser.getProfilePicture());
-            response.setOriginalCreatedAt(originalPost.getCreatedAt());
-            response.setOriginalContent(originalPost.getContent());
-            response.setOriginalImageUrls(originalPost.getImageUrls());
-            response.setOriginalVideoUrl(originalPost.getVideoUrl());
-
-            // Add sharing user's details
-            User sharingUser = userRepository.findById(sharingUserId)
-                    .orElseThrow(() -> new RuntimeException("Sharing user not found"));
-            response.setSharedByUserId(sharingUserId);
-            response.setSharedByUserName(sharingUser.getFirstName() + " " + sharingUser.getLastName());
-            response.setSharedByUserProfilePicture(sharingUser.getProfilePicture());
-            response.setSharedAt(savedPost.getCreatedAt());
-
-            // Set the current post details (same as sharing user in this case)
-            response.setUserId(sharingUserId);
-            response.setUserName(sharingUser.getFirstName() + " " + sharingUser.getLastName());
-            response.setUserProfilePicture(sharingUser.getProfilePicture());
+            // The share references the same media, so deleting the original must not free it
+            mediaContentService.retain(savedPost.getMediaIds());
+            scopeVersionService.bump(savedPost);
+
+            // Original post creator and sharing user details are filled in by the
+            // assembler
+            PostResponse response = feedAssembler.assemble(savedPost);
+            if (response.getOriginalUserId() == null) {
+                throw new RuntimeException("Original user not found");
+            }
 
             return response;
         } catch (Exception e) {
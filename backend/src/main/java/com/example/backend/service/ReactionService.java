@@ -1,16 +1,27 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.ReactionToggleResult;
 import com.example.backend.model.Post;
 import com.example.backend.model.Reaction;
-import com.example.backend.repository.PostRepository;
 import com.example.backend.repository.ReactionRepository;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 @Service
 public class ReactionService {
@@ -19,53 +30,143 @@ public class ReactionService {
     private ReactionRepository reactionRepository;
 
     @Autowired
-    private PostRepository postRepository;
+    private MongoTemplate mongoTemplate;
 
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
-    public boolean toggleReaction(String userId, String postId) {
+    @Autowired
+    private LikeCounterBuffer likeCounterBuffer;
+
+    @Autowired
+    private ScopeVersionService scopeVersionService;
+
+    // "direct" applies every toggle to the post with $inc, "buffered" batches
+    // them in LikeCounterBuffer for hot posts
+    @Value("${reactions.counter-mode:direct}")
+    private String counterMode;
+
+    /**
+     * Toggle a like without read-modify-write races. The unique (userId, postId)
+     * index decides whether this call liked or unliked, and the post counter is
+     * moved with $inc so concurrent toggles never overwrite each other.
+     */
+    public ReactionToggleResult toggleReaction(String userId, String postId) {
         try {
-            Optional<Reaction> existingReaction = reactionRepository.findByUserIdAndPostId(userId, postId);
+            Query reactionQuery = new Query(Criteria.where("userId").is(userId).and("postId").is(postId));
 
-            Post post = postRepository.findById(postId)
-                    .orElseThrow(() -> new RuntimeException("Post not found"));
+            DeleteResult removed = mongoTemplate.remove(reactionQuery, Reaction.class);
+            if (removed.getDeletedCount() > 0) {
+                Post post = updatePostReactionCount(postId, -1);
+                if (post == null) {
+                    throw new RuntimeException("Post not found");
+                }
+                return new ReactionToggleResult(false, post.getLikes());
+            }
+
+            boolean inserted;
+            try {
+                UpdateResult upserted = mongoTemplate.upsert(reactionQuery,
+                        new Update().setOnInsert("createdAt", LocalDateTime.now()), Reaction.class);
+                inserted = upserted.getUpsertedId() != null;
+            } catch (DuplicateKeyException e) {
+                // A concurrent request from the same user inserted it first
+                inserted = false;
+            }
 
-            if (existingReaction.isPresent()) {
-                reactionRepository.delete(existingReaction.get());
-                updatePostReactionCount(postId);
-                return false;
+            if (!inserted) {
+                return new ReactionToggleResult(true, getReactionCount(postId));
             }
 
-            Reaction newReaction = new Reaction(userId, postId);
-            reactionRepository.save(newReaction);
-            updatePostReactionCount(postId);
-            return true;
+            Post post = updatePostReactionCount(postId, 1);
+            if (post == null) {
+                mongoTemplate.remove(reactionQuery, Reaction.class);
+                throw new RuntimeException("Post not found");
+            }
+            return new ReactionToggleResult(true, post.getLikes());
         } catch (Exception e) {
             throw new RuntimeException("Failed to toggle reaction: " + e.getMessage());
         }
     }
 
-    private void updatePostReactionCount(String postId) {
+    /**
+     * Apply a like delta and return the post with its new count, or null if the
+     * post does not exist.
+     */
+    private Post updatePostReactionCount(String postId, int delta) {
         try {
-            Post post = postRepository.findById(postId)
-                    .orElseThrow(() -> new RuntimeException("Post not found"));
-            long likeCount = reactionRepository.countByPostId(postId);
-            post.setLikes((int) likeCount);
-            postRepository.save(post);
+            Query postQuery = new Query(Criteria.where("id").is(postId));
+            postQuery.fields().include("likes", "userId", "groupId", "sharedFrom");
+            Post post;
+            if (isBuffered()) {
+                post = mongoTemplate.findOne(postQuery, Post.class);
+                if (post == null) {
+                    return null;
+                }
+                likeCounterBuffer.add(postId, delta);
+                post.setLikes((int) (post.getLikes() + likeCounterBuffer.pending(postId)));
+            } else {
+                post = mongoTemplate.findAndModify(postQuery, new Update().inc("likes", delta),
+                        FindAndModifyOptions.options().returnNew(true), Post.class);
+                if (post == null) {
+                    return null;
+                }
+                scopeVersionService.bump(post);
+            }
 
             // Send WebSocket update
             Map<String, Object> reactionUpdate = new HashMap<>();
             reactionUpdate.put("postId", postId);
-            reactionUpdate.put("reactionCount", likeCount);
+            reactionUpdate.put("reactionCount", post.getLikes());
             messagingTemplate.convertAndSend("/topic/reactions", reactionUpdate);
+            return post;
         } catch (Exception e) {
             throw new RuntimeException("Failed to update reaction count: " + e.getMessage());
         }
     }
 
+    /**
+     * Read the maintained counter from the post instead of counting reactions.
+     */
     public long getReactionCount(String postId) {
-        return reactionRepository.countByPostId(postId);
+        Query postQuery = new Query(Criteria.where("id").is(postId));
+        postQuery.fields().include("likes");
+        Post post = mongoTemplate.findOne(postQuery, Post.class);
+        if (post == null) {
+            throw new RuntimeException("Post not found");
+        }
+        return Math.max(post.getLikes() + likeCounterBuffer.pending(postId), 0);
+    }
+
+    /**
+     * Fold buffered like deltas into Post.likes. Runs in both modes so that
+     * switching back to direct mode still drains what was buffered. Listings
+     * show the new count only from here, so this is where their versions are
+     * bumped.
+     */
+    @Scheduled(fixedDelayString = "${reactions.flush-interval-ms:250}")
+    @PreDestroy
+    public void flushLikeCounters() {
+        Map<String, Long> deltas = likeCounterBuffer.drain();
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            try {
+                Query postQuery = new Query(Criteria.where("id").is(entry.getKey()));
+                postQuery.fields().include("userId", "groupId", "sharedFrom");
+                Post post = mongoTemplate.findAndModify(postQuery, new Update().inc("likes", entry.getValue()),
+                        Post.class);
+                if (post != null) {
+                    scopeVersionService.bump(post);
+                }
+            } catch (Exception e) {
+                // Keep the delta for the next flush rather than dropping likes
+                likeCounterBuffer.add(entry.getKey(), entry.getValue());
+                System.err.println("Error flushing likes for post " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean isBuffered() {
+        return "buffered".equalsIgnoreCase(counterMode);
     }
 
     public boolean hasUserReacted(String userId, String postId) {
@@ -1,12 +1,14 @@
 package com.example.backend.service;
 
 import com.example.backend.model.Post;
+import com.example.backend.model.PostTombstone;
 import com.example.backend.model.Report;
 import com.example.backend.model.User;
 import com.example.backend.repository.PostRepository;
 import com.example.backend.repository.ReportRepository;
 import com.example.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Page;
@@ -30,6 +32,12 @@ public class ReportService {
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ScopeVersionService scopeVersionService;
     
     /**
      * Create a new report
@@ -110,7 +118,10 @@ public class ReportService {
         Report report = reportOpt.get();
         
         // Delete the post
+        Optional<Post> post = postRepository.findById(report.getPostId());
         postRepository.deleteById(report.getPostId());
+        mongoTemplate.save(new PostTombstone(report.getPostId()));
+        post.ifPresent(scopeVersionService::bump);
         
         // Update the report status
         report.setStatus("RESOLVED");
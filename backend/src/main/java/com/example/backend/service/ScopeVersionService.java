@@ -0,0 +1,135 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Post;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Version stamps for post listings that clients poll. Every write that can
+ * change a listing bumps the stamp of each scope it touches: the home feed,
+ * the author's timeline and the post's group. Listing endpoints turn the
+ * stamp into a weak ETag and answer a matching If-None-Match with 304 after
+ * a single lookup by ID, without reading any posts.
+ *
+ * A stamp is an epoch fixed when its record is created plus a counter, so a
+ * scope whose record was lost never hands out an ETag it used before. A scope
+ * that has no record yet has a fixed ETag, so reads never write.
+ */
+@Service
+public class ScopeVersionService {
+
+    public static final String FEED = "feed";
+    private static final String COLLECTION = "scope_versions";
+    // Stamp of a scope nothing has been written to
+    private static final String UNWRITTEN = "0";
+
+    private final MongoTemplate mongoTemplate;
+
+    public ScopeVersionService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public static String user(String userId) {
+        return "user:" + userId;
+    }
+
+    public static String group(String groupId) {
+        return "group:" + groupId;
+    }
+
+    /**
+     * The scopes whose listings include post.
+     */
+    public static List<String> scopesOf(Post post) {
+        List<String> scopes = new ArrayList<>();
+        if (post.getSharedFrom() == null) {
+            scopes.add(FEED);
+        }
+        if (post.getUserId() != null) {
+            scopes.add(user(post.getUserId()));
+        }
+        if (post.getGroupId() != null) {
+            scopes.add(group(post.getGroupId()));
+        }
+        return scopes;
+    }
+
+    /**
+     * Weak ETag for the current state of scope. Read it before the listing,
+     * so a write racing the read leaves the client with an older tag, never
+     * a newer one.
+     */
+    public String etag(String scope) {
+        Document stamp = mongoTemplate.getCollection(COLLECTION).find(new Document("_id", scope)).first();
+        String value = stamp != null
+                ? stamp.getString("epoch") + "-" + stamp.get("version", Number.class).longValue()
+                : UNWRITTEN;
+        return "W/\"" + scope + "-" + value + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header names etag. Listings are compared
+     * weakly, so a W/ prefix on either side is ignored.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Invalidate the listings of post after it changed.
+     */
+    public void bump(Post post) {
+        bump(scopesOf(post));
+    }
+
+    /**
+     * Invalidate the listings of a post known only by ID.
+     */
+    public void bumpPost(String postId) {
+        Query query = new Query(Criteria.where("_id").is(postId));
+        query.fields().include("userId", "groupId", "sharedFrom");
+        Post post = mongoTemplate.findOne(query, Post.class);
+        if (post != null) {
+            bump(post);
+        }
+    }
+
+    public void bump(List<String> scopes) {
+        if (scopes.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+            for (String scope : scopes) {
+                bulk.upsert(new Query(Criteria.where("_id").is(scope)),
+                        new Update().inc("version", 1).setOnInsert("epoch", new ObjectId().toHexString()));
+            }
+            bulk.execute();
+        } catch (Exception e) {
+            // A missed bump only delays clients seeing the change until the next write
+            System.err.println("Error bumping versions of " + scopes + ": " + e.getMessage());
+        }
+    }
+}
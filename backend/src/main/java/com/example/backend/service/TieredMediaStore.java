@@ -0,0 +1,149 @@
+package com.example.backend.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Media stores chained from fastest to most durable, e.g. memory, this node's
+ * disk, then GridFS (see {@code media.store.tiers}).
+ *
+ * Reads go down the chain and a hit is promoted into the faster tiers above
+ * it: into memory before responding, onto disk in the background. Writes go
+ * only to the last persistent tier, which is the durable one, and return once
+ * it holds the bytes; the faster tiers pick them up on the first read. Deletes
+ * remove the bytes from every tier.
+ */
+public class TieredMediaStore implements MediaStore {
+
+    private final List<MediaStore> tiers;
+    private final MediaStore durable;
+    private final Executor executor;
+
+    private final Set<String> promoting = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, LongAdder> hits = new LinkedHashMap<>();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder promotions = new LongAdder();
+
+    public TieredMediaStore(List<MediaStore> tiers, Executor executor) {
+        this.tiers = List.copyOf(tiers);
+        this.durable = this.tiers.stream()
+                .filter(MediaStore::isPersistent)
+                .reduce((first, second) -> second)
+                .orElseThrow(() -> new IllegalArgumentException("At least one persistent media store is required"));
+        this.executor = executor;
+        for (MediaStore tier : this.tiers) {
+            hits.put(tier.getName(), new LongAdder());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "tiered";
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    @Override
+    public Optional<Resource> read(String id, long length) {
+        for (int i = 0; i < tiers.size(); i++) {
+            Optional<Resource> found = tiers.get(i).read(id, length);
+            if (found.isPresent()) {
+                hits.get(tiers.get(i).getName()).increment();
+                return Optional.of(promote(id, length, found.get(), i));
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    @Override
+    public long write(String id, String filename, String contentType, long length, InputStream content)
+            throws IOException {
+        // The media is marked ready as soon as this returns, so it must already
+        // be somewhere that survives losing this node
+        return durable.write(id, filename, contentType, length, content);
+    }
+
+    @Override
+    public void delete(String id) {
+        for (MediaStore tier : tiers) {
+            tier.delete(id);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        Map<String, Long> hitCounts = new LinkedHashMap<>();
+        for (MediaStore tier : tiers) {
+            names.add(tier.getName());
+            hitCounts.put(tier.getName(), hits.get(tier.getName()).sum());
+        }
+        result.put("tiers", names);
+        result.put("durableTier", durable.getName());
+        result.put("hits", hitCounts);
+        result.put("missCount", misses.sum());
+        result.put("promotionCount", promotions.sum());
+        return result;
+    }
+
+    private Resource promote(String id, long length, Resource source, int foundAt) {
+        Resource served = source;
+        for (int i = foundAt - 1; i >= 0; i--) {
+            MediaStore tier = tiers.get(i);
+            if (tier.promotesSynchronously()) {
+                served = promoteNow(tier, id, length, served);
+            } else if (promoting.add(tier.getName() + ":" + id)) {
+                Resource from = served;
+                executor.execute(() -> {
+                    try {
+                        copy(from, tier, id, length);
+                    } catch (Exception e) {
+                        System.err.println("Error promoting media " + id + " to " + tier.getName() + ": "
+                                + e.getMessage());
+                    } finally {
+                        promoting.remove(tier.getName() + ":" + id);
+                    }
+                });
+            }
+        }
+        return served;
+    }
+
+    private Resource promoteNow(MediaStore tier, String id, long length, Resource source) {
+        try {
+            if (copy(source, tier, id, length) > 0) {
+                return tier.read(id, length).orElse(source);
+            }
+        } catch (IOException e) {
+            System.err.println("Error promoting media " + id + " to " + tier.getName() + ": " + e.getMessage());
+        }
+        return source;
+    }
+
+    private long copy(Resource source, MediaStore target, String id, long length) throws IOException {
+        try (InputStream in = source.getInputStream()) {
+            long copied = target.write(id, source.getFilename(), null, length, in);
+            if (copied > 0) {
+                promotions.increment();
+            }
+            return copied;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.FeedPage;
+import com.example.backend.dto.PageCursor;
+import com.example.backend.model.Post;
+import com.example.backend.model.Timeline;
+import com.example.backend.model.TimelineEntry;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fan-out-on-write home feed. A new post's ID is pushed onto the capped home
+ * timeline on the MediaProcessor executor after it is saved; a feed page is
+ * then one range read of that array followed by one batched load of the
+ * posts it names.
+ *
+ * Pages the timeline cannot answer are pulled from the posts collection as
+ * before: past the oldest entry of a full timeline, while the timeline is
+ * being seeded, after a fan-out could not be written until the timeline is
+ * seeded again, and when too many of its posts have been deleted. Both paths
+ * use the same cursor, so a client scrolling past the timeline moves from
+ * one to the other without noticing.
+ */
+@Service
+public class TimelineService {
+
+    private static final Sort ENTRY_ORDER = Sort.by(Sort.Direction.DESC, "createdAt", "postId");
+    private static final int FAN_OUT_ATTEMPTS = 3;
+    private static final long FAN_OUT_RETRY_DELAY_MS = 200;
+
+    private final MongoTemplate mongoTemplate;
+    private final FeedAssembler feedAssembler;
+    private final ScopeVersionService scopeVersionService;
+    private final Executor executor;
+    private final boolean enabled;
+    private final int capacity;
+
+    private final AtomicBoolean seeding = new AtomicBoolean();
+    private final LongAdder timelineReads = new LongAdder();
+    private final LongAdder pulledReads = new LongAdder();
+    private final LongAdder fanOutFailures = new LongAdder();
+
+    public TimelineService(
+            MongoTemplate mongoTemplate,
+            FeedAssembler feedAssembler,
+            ScopeVersionService scopeVersionService,
+            @Qualifier("taskExecutor") Executor executor,
+            @Value("${timeline.enabled:true}") boolean enabled,
+            @Value("${timeline.capacity:1000}") int capacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.feedAssembler = feedAssembler;
+        this.scopeVersionService = scopeVersionService;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Push a newly saved post onto the home timeline in the background, then
+     * bump the feed's version stamp: only from then on does the first feed
+     * page include the post. Shares only appear in their group, so they are
+     * not pushed.
+     */
+    public void fanOut(Post post) {
+        if (post.getSharedFrom() != null) {
+            return;
+        }
+        if (!enabled) {
+            scopeVersionService.bump(List.of(ScopeVersionService.FEED));
+            return;
+        }
+        TimelineEntry entry = new TimelineEntry(post.getId(), post.getCreatedAt());
+        executor.execute(() -> {
+            try {
+                pushWithRetry(entry);
+            } finally {
+                scopeVersionService.bump(List.of(ScopeVersionService.FEED));
+            }
+        });
+    }
+
+    private void pushWithRetry(TimelineEntry entry) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                push(List.of(entry), new Update());
+                return;
+            } catch (Exception e) {
+                if (attempt >= FAN_OUT_ATTEMPTS) {
+                    fanOutFailures.increment();
+                    System.err.println("Error adding post " + entry.getPostId() + " to the home timeline: "
+                            + e.getMessage());
+                    break;
+                }
+            }
+            try {
+                Thread.sleep(FAN_OUT_RETRY_DELAY_MS * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // The timeline now lacks a post newer than some of its entries, so it
+        // must not answer reads: they are pulled until seeding brings it back
+        try {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(Timeline.HOME)),
+                    new Update().set("seeded", false), Timeline.class);
+        } catch (Exception e) {
+            System.err.println("Error marking the home timeline for reseeding: " + e.getMessage());
+        }
+    }
+
+    /**
+     * One page of the home feed from the timeline, or empty if the timeline
+     * cannot answer it and the caller has to query the posts collection.
+     */
+    public Optional<FeedPage> readHome(PageCursor after, int pageSize) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        // Read a page's worth of spare entries in case some posts were deleted
+        int wanted = pageSize * 2 + 1;
+        Document page = readEntries(after, wanted);
+        if (page == null || !page.getBoolean("seeded", false)) {
+            seedAsync();
+            pulledReads.increment();
+            return Optional.empty();
+        }
+
+        Set<String> postIds = new LinkedHashSet<>();
+        for (Document entry : page.getList("entries", Document.class)) {
+            postIds.add(entry.getString("postId"));
+        }
+        // A timeline below capacity holds every post, so running out of entries is the end of the feed
+        boolean complete = page.getInteger("size", 0) < capacity;
+        boolean exhausted = page.getList("entries", Document.class).size() < wanted;
+
+        List<Post> posts = load(postIds);
+        if (posts.size() <= pageSize && !(complete && exhausted)) {
+            // Older posts than these are only in the posts collection
+            pulledReads.increment();
+            return Optional.empty();
+        }
+
+        String nextCursor = null;
+        if (posts.size() > pageSize) {
+            posts = posts.subList(0, pageSize);
+            Post last = posts.get(pageSize - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        timelineReads.increment();
+        return Optional.of(new FeedPage(feedAssembler.assemble(posts), nextCursor));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("enabled", enabled);
+        result.put("capacity", capacity);
+        result.put("timelineReadCount", timelineReads.sum());
+        result.put("pulledReadCount", pulledReads.sum());
+        result.put("fanOutFailureCount", fanOutFailures.sum());
+        return result;
+    }
+
+    /**
+     * The first entries of the home timeline older than after, with the
+     * timeline's total size, filtered and sliced on the server.
+     */
+    private Document readEntries(PageCursor after, int limit) {
+        Object entries = "$entries";
+        if (after != null) {
+            Date createdAt = Date.from(after.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant());
+            Document older = new Document("$or", List.of(
+                    new Document("$lt", List.of("$$entry.createdAt", createdAt)),
+                    new Document("$and", List.of(
+                            new Document("$eq", List.of("$$entry.createdAt", createdAt)),
+                            new Document("$lt", List.of("$$entry.postId", after.getId()))))));
+            entries = new Document("$filter", new Document("input", "$entries")
+                    .append("as", "entry")
+                    .append("cond", older));
+        }
+
+        Document projection = new Document("seeded", 1)
+                .append("size", new Document("$size", "$entries"))
+                .append("entries", new Document("$slice", List.of(entries, limit)));
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Timeline.class))
+                .aggregate(List.of(
+                        new Document("$match", new Document("_id", Timeline.HOME)),
+                        new Document("$project", projection)))
+                .first();
+    }
+
+    // Posts in timeline order; deleted ones are skipped
+    private List<Post> load(Set<String> postIds) {
+        Map<String, Post> byId = new HashMap<>();
+        for (Post post : mongoTemplate.find(new Query(Criteria.where("_id").in(postIds)), Post.class)) {
+            byId.put(post.getId(), post);
+        }
+        List<Post> posts = new ArrayList<>();
+        for (String postId : postIds) {
+            Post post = byId.get(postId);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
+    private void push(List<TimelineEntry> entries, Update update) {
+        update.push("entries").sort(ENTRY_ORDER).slice(capacity).each(entries.toArray());
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(Timeline.HOME)), update, Timeline.class);
+    }
+
+    /**
+     * Fill the timeline with the newest posts in the background.
+     */
+    private void seedAsync() {
+        if (!seeding.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                seed();
+            } catch (Exception e) {
+                System.err.println("Error seeding the home timeline: " + e.getMessage());
+            } finally {
+                seeding.set(false);
+            }
+        });
+    }
+
+    /**
+     * Push the newest posts that are not on the timeline yet. A timeline being
+     * reseeded after a failed fan-out keeps its entries, so only the missing
+     * posts are pushed; pushing all of them again would fill the capacity with
+     * duplicates. A fan-out racing the seed can still leave one post twice,
+     * which is read once.
+     */
+    void seed() {
+        Query query = new Query(Criteria.where("sharedFrom").is(null))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(capacity);
+        query.fields().include("createdAt");
+
+        Set<String> present = new HashSet<>();
+        Query current = new Query(Criteria.where("_id").is(Timeline.HOME));
+        current.fields().include("entries.postId");
+        Timeline timeline = mongoTemplate.findOne(current, Timeline.class);
+        if (timeline != null && timeline.getEntries() != null) {
+            for (TimelineEntry entry : timeline.getEntries()) {
+                present.add(entry.getPostId());
+            }
+        }
+
+        List<TimelineEntry> entries = new ArrayList<>();
+        for (Post post : mongoTemplate.find(query, Post.class)) {
+            if (!present.contains(post.getId())) {
+                entries.add(new TimelineEntry(post.getId(), post.getCreatedAt()));
+            }
+        }
+        push(entries, new Update().set("seeded", true).set("seededAt", LocalDateTime.now()));
+    }
+}
@@ -5,19 +5,13 @@ import com.example.backend.model.PostResponse;
 import com.example.backend.model.User;
 import com.example.backend.repository.PostRepository;
 import com.example.backend.repository.UserRepository;
-import com.mongodb.client.gridfs.GridFSBucket;
-import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class UserService {
@@ -32,7 +26,16 @@ public class UserService {
     private PostService postService;
 
     @Autowired
-    private GridFSBucket gridFSBucket;
+    private FeedAssembler feedAssembler;
+
+    @Autowired
+    private UserSummaryCache userSummaryCache;
+
+    @Autowired
+    private MediaUploadPipeline mediaUploadPipeline;
+
+    @Autowired
+    private ScopeVersionService scopeVersionService;
 
     public User getUserById(String userId) {
         User user = userRepository.findById(userId)
@@ -75,36 +78,27 @@ public class UserService {
                 throw new IllegalArgumentException("Only image files are allowed for profile picture");
             }
 
-            // Save to GridFS
-            ObjectId fileId = gridFSBucket.uploadFromStream(
-                    profilePicture.getOriginalFilename(),
-                    profilePicture.getInputStream());
+            // Save to the media store in one streaming pass
+            String mediaId = mediaUploadPipeline.store(profilePicture, "image", userId,
+                    ImageDerivativeService.AVATAR_WIDTHS);
 
             // Create URL for the profile picture
-            String mediaId = fileId.toHexString();
             user.setProfilePicture("/api/media/" + mediaId);
-
-            // Save to local storage
-            Path uploadsPath = Paths.get("backend", "uploads");
-            if (!Files.exists(uploadsPath)) {
-                Files.createDirectories(uploadsPath);
-            }
-
-            Path filePath = uploadsPath.resolve(mediaId);
-            Files.write(filePath, profilePicture.getBytes());
         }
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userSummaryCache.invalidate(userId);
+        // Author names and pictures are part of every listing the user's posts appear in
+        scopeVersionService.bump(List.of(ScopeVersionService.FEED, ScopeVersionService.user(userId)));
+        return savedUser;
     }
 
     public List<PostResponse> getUserPosts(String userId) {
-        userRepository.findById(userId)
+        userSummaryCache.get(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
 
         List<Post> posts = postRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return posts.stream()
-                .map(post -> postService.convertToPostResponse(post))
-                .collect(Collectors.toList());
+        return feedAssembler.assemble(posts);
     }
 
     public User updateUserRole(String userId, String newRole) {
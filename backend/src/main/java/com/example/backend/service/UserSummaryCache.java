@@ -0,0 +1,104 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserSummary;
+import com.example.backend.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bounded, TTL'd cache of {@link UserSummary} keyed by user ID. Misses are
+ * loaded in bulk with a projected {@code $in} query, so the password hash and
+ * other profile fields never leave Mongo for author rendering.
+ */
+@Service
+public class UserSummaryCache {
+
+    private final MongoTemplate mongoTemplate;
+    private final Cache<String, UserSummary> cache;
+
+    public UserSummaryCache(
+            MongoTemplate mongoTemplate,
+            @Value("${cache.user-summary.max-size:10000}") long maxSize,
+            @Value("${cache.user-summary.ttl-minutes:10}") long ttlMinutes) {
+        this.mongoTemplate = mongoTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<UserSummary> get(String userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(getAll(Set.of(userId)).get(userId));
+    }
+
+    /**
+     * Resolve several users at once. Users that do not exist are absent from the
+     * returned map.
+     */
+    public Map<String, UserSummary> getAll(Collection<String> userIds) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String userId : userIds) {
+            if (userId != null) {
+                keys.add(userId);
+            }
+        }
+        if (keys.isEmpty()) {
+            return new HashMap<>();
+        }
+        return cache.getAll(keys, this::loadAll);
+    }
+
+    public void invalidate(String userId) {
+        if (userId != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("loadFailureCount", stats.loadFailureCount());
+        return result;
+    }
+
+    private Map<String, UserSummary> loadAll(Set<? extends String> userIds) {
+        Query query = new Query(Criteria.where("id").in(userIds));
+        query.fields().include("firstName", "lastName", "profilePicture");
+
+        Map<String, UserSummary> loaded = new HashMap<>();
+        for (User user : mongoTemplate.find(query, User.class)) {
+            loaded.put(user.getId(), toSummary(user));
+        }
+        return loaded;
+    }
+
+    private static UserSummary toSummary(User user) {
+        return new UserSummary(
+                user.getId(),
+                user.getFirstName() + " " + user.getLastName(),
+                user.getProfilePicture());
+    }
+}
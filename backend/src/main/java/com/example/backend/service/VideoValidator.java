@@ -0,0 +1,119 @@
+package com.example.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Limits on uploaded videos, shared by posts sent with the video bytes and by
+ * resumable uploads so neither path accepts what the other rejects.
+ *
+ * The duration is read from the movie header ({@code mvhd}) inside the
+ * {@code moov} box, which MP4 and QuickTime files both carry; other boxes are
+ * skipped without being read, so only the header bytes are decoded.
+ */
+@Component
+public class VideoValidator {
+
+    private final List<String> allowedTypes;
+    private final long maxSizeMb;
+    private final long maxDurationSeconds;
+
+    public VideoValidator(
+            @Value("${video.allowed.types:video/mp4,video/quicktime}") List<String> allowedTypes,
+            @Value("${video.max.size-mb:15}") long maxSizeMb,
+            @Value("${video.max.duration.seconds:30}") long maxDurationSeconds) {
+        this.allowedTypes = allowedTypes;
+        this.maxSizeMb = maxSizeMb;
+        this.maxDurationSeconds = maxDurationSeconds;
+    }
+
+    /**
+     * Check what is known before any bytes arrive.
+     */
+    public void validate(String contentType, long size) {
+        if (contentType == null || !allowedTypes.contains(contentType)) {
+            throw new IllegalArgumentException(
+                    "Invalid video format. Allowed formats: " + String.join(", ", allowedTypes));
+        }
+        if (size <= 0 || size > maxSizeMb * 1024 * 1024) {
+            throw new IllegalArgumentException("Video size must be less than " + maxSizeMb + "MB");
+        }
+    }
+
+    /**
+     * @param content the whole video, from its first byte
+     */
+    public void validateDuration(InputStream content) {
+        double seconds;
+        try {
+            seconds = readDurationSeconds(content);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read the video duration");
+        }
+        if (seconds > maxDurationSeconds) {
+            throw new IllegalArgumentException("Video must be at most " + maxDurationSeconds + " seconds long");
+        }
+    }
+
+    static double readDurationSeconds(InputStream content) throws IOException {
+        DataInputStream in = new DataInputStream(content);
+        long remaining = Long.MAX_VALUE;
+        while (remaining > 0) {
+            long size = Integer.toUnsignedLong(in.readInt());
+            String type = readType(in);
+            long header = 8;
+            if (size == 1) {
+                size = in.readLong();
+                header = 16;
+            } else if (size == 0) {
+                // The box runs to the end of the file
+                size = remaining;
+            }
+            if (size < header || size > remaining) {
+                throw new IOException("Malformed box " + type);
+            }
+
+            if ("moov".equals(type)) {
+                // Descend: the rest of the search happens inside the movie box
+                remaining = size - header;
+            } else if ("mvhd".equals(type)) {
+                int version = in.readUnsignedByte();
+                in.skipNBytes(3);
+                long timescale;
+                long duration;
+                if (version == 1) {
+                    in.skipNBytes(16);
+                    timescale = Integer.toUnsignedLong(in.readInt());
+                    duration = in.readLong();
+                } else {
+                    in.skipNBytes(8);
+                    timescale = Integer.toUnsignedLong(in.readInt());
+                    duration = Integer.toUnsignedLong(in.readInt());
+                }
+                if (timescale == 0) {
+                    throw new IOException("Movie header has no timescale");
+                }
+                return (double) duration / timescale;
+            } else {
+                in.skipNBytes(size - header);
+                if (remaining != Long.MAX_VALUE) {
+                    remaining -= size;
+                }
+            }
+        }
+        throw new EOFException("No movie header found");
+    }
+
+    private static String readType(DataInputStream in) throws IOException {
+        byte[] type = new byte[4];
+        in.readFully(type);
+        return new String(type, StandardCharsets.ISO_8859_1);
+    }
+}
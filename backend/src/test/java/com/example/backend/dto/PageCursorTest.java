@@ -0,0 +1,39 @@
+package com.example.backend.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class PageCursorTest {
+
+	private static final String POST_ID = "65a1f0c2e4b0a1b2c3d4e5f6";
+
+	@Test
+	void roundTripsThroughItsToken() {
+		LocalDateTime createdAt = LocalDateTime.of(2024, 1, 12, 9, 30, 15, 123_456_000);
+
+		PageCursor decoded = PageCursor.decode(new PageCursor(createdAt, POST_ID).encode());
+
+		assertEquals(createdAt, decoded.getCreatedAt());
+		assertEquals(POST_ID, decoded.getId());
+	}
+
+	@Test
+	void rejectsMalformedTokens() {
+		assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not base64!"));
+		assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(""));
+		assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(token("2024-01-12T09:30")));
+		assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(token("2024-01-12T09:30|abc")));
+		assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(token("soon|" + POST_ID)));
+		assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(token("|" + POST_ID)));
+	}
+
+	private static String token(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
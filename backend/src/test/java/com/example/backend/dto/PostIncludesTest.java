@@ -0,0 +1,48 @@
+package com.example.backend.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class PostIncludesTest {
+
+	@Test
+	void nothingIsIncludedByDefault() {
+		assertSame(PostIncludes.none(), PostIncludes.parse(null));
+		assertSame(PostIncludes.none(), PostIncludes.parse(" "));
+
+		PostIncludes includes = PostIncludes.parse(",");
+		assertFalse(includes.isCommentCount());
+		assertFalse(includes.isReactionSummary());
+		assertEquals(0, includes.getFirstComments());
+	}
+
+	@Test
+	void parsesEveryPart() {
+		PostIncludes includes = PostIncludes.parse("commentCount, reactionSummary,firstComments:5");
+
+		assertTrue(includes.isCommentCount());
+		assertTrue(includes.isReactionSummary());
+		assertEquals(5, includes.getFirstComments());
+	}
+
+	@Test
+	void firstCommentsDefaultsAndIsClamped() {
+		assertEquals(3, PostIncludes.parse("firstComments").getFirstComments());
+		assertEquals(3, PostIncludes.parse("firstComments:").getFirstComments());
+		assertEquals(PostIncludes.MAX_FIRST_COMMENTS, PostIncludes.parse("firstComments:1000").getFirstComments());
+		assertEquals(0, PostIncludes.parse("firstComments:-4").getFirstComments());
+	}
+
+	@Test
+	void rejectsUnknownPartsAndBadCounts() {
+		assertThrows(IllegalArgumentException.class, () -> PostIncludes.parse("firstComments:abc"));
+		assertThrows(IllegalArgumentException.class, () -> PostIncludes.parse("firstComments:99999999999"));
+		assertThrows(IllegalArgumentException.class, () -> PostIncludes.parse("commentCount,author"));
+		assertThrows(IllegalArgumentException.class, () -> PostIncludes.parse("firstCommentsX"));
+	}
+}
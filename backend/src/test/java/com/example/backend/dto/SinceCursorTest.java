@@ -0,0 +1,56 @@
+package com.example.backend.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class SinceCursorTest {
+
+	private static final String POST_ID = "65a1f0c2e4b0a1b2c3d4e5f6";
+
+	@Test
+	void roundTripsThroughItsToken() {
+		LocalDateTime createdAt = LocalDateTime.of(2024, 1, 12, 9, 30, 15, 123_000_000);
+		LocalDateTime syncedAt = createdAt.plusMinutes(5);
+
+		SinceCursor decoded = SinceCursor.decode(new SinceCursor(createdAt, POST_ID, syncedAt).encode());
+
+		assertEquals(createdAt, decoded.getCreatedAt());
+		assertEquals(POST_ID, decoded.getId());
+		assertEquals(syncedAt, decoded.getSyncedAt());
+	}
+
+	@Test
+	void emptyCursorSortsBeforeEveryPost() {
+		LocalDateTime syncedAt = LocalDateTime.of(2024, 1, 12, 9, 30);
+
+		SinceCursor decoded = SinceCursor.decode(SinceCursor.empty(syncedAt).encode());
+
+		assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0), decoded.getCreatedAt());
+		assertEquals("000000000000000000000000", decoded.getId());
+		assertEquals(syncedAt, decoded.getSyncedAt());
+	}
+
+	@Test
+	void rejectsMalformedTokens() {
+		assertThrows(IllegalArgumentException.class, () -> SinceCursor.decode("not base64!"));
+		assertThrows(IllegalArgumentException.class, () -> SinceCursor.decode(""));
+		assertThrows(IllegalArgumentException.class,
+				() -> SinceCursor.decode(token("2024-01-12T09:30|" + POST_ID)));
+		assertThrows(IllegalArgumentException.class,
+				() -> SinceCursor.decode(token("2024-01-12T09:30|not-an-id|2024-01-12T09:35")));
+		assertThrows(IllegalArgumentException.class,
+				() -> SinceCursor.decode(token("yesterday|" + POST_ID + "|2024-01-12T09:35")));
+		assertThrows(IllegalArgumentException.class,
+				() -> SinceCursor.decode(token("2024-01-12T09:30|" + POST_ID + "|2024-01-12T09:35|extra")));
+	}
+
+	private static String token(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
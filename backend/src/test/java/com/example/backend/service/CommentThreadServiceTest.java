@@ -0,0 +1,73 @@
+package com.example.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CommentThreadServiceTest {
+
+	private static final String ROOT = "65a1f0c2e4b0a1b2c3d4e5f0";
+	private static final String REPLY = ROOT + "/65a1f0c2e4b0a1b2c3d4e5f1";
+	private static final String NESTED = REPLY + "/65a1f0c2e4b0a1b2c3d4e5f2";
+	// Starts with REPLY but is not below it, so a plain prefix match would be wrong
+	private static final String SIBLING_OF_REPLY = ROOT + "/65a1f0c2e4b0a1b2c3d4e5f1ff";
+
+	@Test
+	void subtreeRangeHoldsExactlyTheDescendants() {
+		List<String> paths = List.of(ROOT, REPLY, NESTED, REPLY + "/ffffffffffffffffffffffff",
+				ROOT + "/65a1f0c2e4b0a1b2c3d4e5f3", SIBLING_OF_REPLY, "65a1f0c2e4b0a1b2c3d4e5f9");
+
+		assertEquals(List.of(REPLY, NESTED, REPLY + "/ffffffffffffffffffffffff",
+				ROOT + "/65a1f0c2e4b0a1b2c3d4e5f3", SIBLING_OF_REPLY), subtree(ROOT, paths));
+		assertEquals(List.of(NESTED, REPLY + "/ffffffffffffffffffffffff"), subtree(REPLY, paths));
+		assertEquals(List.of(), subtree(NESTED, paths));
+	}
+
+	@Test
+	void subtreeBoundsSitRightAroundTheSeparator() {
+		// '0' is the character after '/', so nothing but the subtree falls between
+		assertEquals('/' + 1, '0');
+		assertTrue(CommentThreadService.subtreeStart(ROOT).compareTo(ROOT) > 0);
+		assertFalse(inRange(ROOT, ROOT + "0"));
+		assertFalse(inRange(ROOT, ROOT + "."));
+	}
+
+	@Test
+	void cursorsRoundTripAndRejectAnythingButPaths() {
+		assertEquals(NESTED, CommentThreadService.decodeCursor(CommentThreadService.encodeCursor(NESTED)));
+
+		assertThrows(IllegalArgumentException.class, () -> CommentThreadService.decodeCursor("not base64!"));
+		assertThrows(IllegalArgumentException.class, () -> CommentThreadService.decodeCursor(token(ROOT + "/")));
+		assertThrows(IllegalArgumentException.class, () -> CommentThreadService.decodeCursor(token("abc")));
+		assertThrows(IllegalArgumentException.class,
+				() -> CommentThreadService.decodeCursor(token(ROOT + "/{\"$gt\":\"\"}")));
+	}
+
+	private static List<String> subtree(String path, List<String> paths) {
+		List<String> matched = new ArrayList<>();
+		for (String candidate : paths) {
+			if (inRange(path, candidate)) {
+				matched.add(candidate);
+			}
+		}
+		return matched;
+	}
+
+	// The range getReplies queries; Mongo compares these ASCII strings byte by byte like compareTo
+	private static boolean inRange(String path, String candidate) {
+		return candidate.compareTo(CommentThreadService.subtreeStart(path)) >= 0
+				&& candidate.compareTo(CommentThreadService.subtreeEnd(path)) < 0;
+	}
+
+	private static String token(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,146 @@
+package com.example.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class LikeCounterBufferTest {
+
+	private static final String HOT_POST = "hot-post";
+
+	@Test
+	void drainReportsEveryDelta() {
+		LikeCounterBuffer buffer = new LikeCounterBuffer(0);
+		buffer.add(HOT_POST, 1);
+		buffer.add(HOT_POST, 1);
+		buffer.add(HOT_POST, -1);
+		buffer.add("other-post", 1);
+
+		assertEquals(1, buffer.pending(HOT_POST));
+
+		Map<String, Long> deltas = buffer.drain();
+		assertEquals(1L, deltas.get(HOT_POST));
+		assertEquals(1L, deltas.get("other-post"));
+		assertEquals(0, buffer.pending(HOT_POST));
+
+		// Idle posts stop being tracked once the idle window has passed
+		buffer.drain();
+		assertEquals(0, buffer.size());
+	}
+
+	@Test
+	void concurrentTogglesOnHotPostAreNotLost() throws Exception {
+		for (int threads : new int[] { 1, 2, 4, 8 }) {
+			long opsPerThread = 200_000;
+			assertEquals(threads * opsPerThread, hammer(threads, opsPerThread),
+					"likes lost or counted twice with " + threads + " threads");
+		}
+	}
+
+	@Test
+	void evictionWhileWritersAreActiveLosesNothing() throws Exception {
+		// An idle window of zero evicts every counter a drain finds empty, so
+		// eviction races the writers on every pass
+		LikeCounterBuffer buffer = new LikeCounterBuffer(0);
+		String[] posts = { "post-a", "post-b", "post-c", "post-d" };
+		int threads = 4;
+		long opsPerThread = 100_000;
+		AtomicLong folded = new AtomicLong();
+		AtomicBoolean writing = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+
+		try {
+			Future<?> flusher = pool.submit(() -> {
+				while (writing.get()) {
+					buffer.drain().values().forEach(folded::addAndGet);
+				}
+			});
+
+			List<Future<?>> writers = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				int offset = i;
+				writers.add(pool.submit(() -> {
+					start.await();
+					for (long op = 0; op < opsPerThread; op++) {
+						buffer.add(posts[(int) ((op + offset) % posts.length)], 1);
+						if (op % 64 == 0) {
+							Thread.yield();
+						}
+					}
+					return null;
+				}));
+			}
+
+			start.countDown();
+			for (Future<?> writer : writers) {
+				writer.get();
+			}
+			writing.set(false);
+			flusher.get();
+			buffer.drain().values().forEach(folded::addAndGet);
+
+			assertEquals(threads * opsPerThread, folded.get());
+			buffer.drain();
+			assertEquals(0, buffer.size());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Many writers increment one post while a flusher drains concurrently, like
+	 * the scheduled fold-in does in production.
+	 */
+	private long hammer(int threads, long opsPerThread) throws Exception {
+		LikeCounterBuffer buffer = new LikeCounterBuffer();
+		AtomicLong folded = new AtomicLong();
+		AtomicBoolean writing = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+
+		try {
+			Future<?> flusher = pool.submit(() -> {
+				while (writing.get()) {
+					buffer.drain().values().forEach(folded::addAndGet);
+				}
+			});
+
+			List<Future<?>> writers = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				writers.add(pool.submit(() -> {
+					start.await();
+					for (long op = 0; op < opsPerThread; op++) {
+						buffer.add(HOT_POST, 1);
+					}
+					return null;
+				}));
+			}
+
+			start.countDown();
+			for (Future<?> writer : writers) {
+				writer.get();
+			}
+
+			writing.set(false);
+			flusher.get();
+			// Two drains pick up anything left behind by the last concurrent drain
+			buffer.drain().values().forEach(folded::addAndGet);
+			buffer.drain().values().forEach(folded::addAndGet);
+
+			return folded.get();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
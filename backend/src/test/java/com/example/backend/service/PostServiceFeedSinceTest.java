@@ -0,0 +1,123 @@
+package com.example.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.example.backend.dto.FeedDelta;
+import com.example.backend.dto.SinceCursor;
+import com.example.backend.model.Post;
+import com.example.backend.model.PostResponse;
+import com.example.backend.model.PostTombstone;
+import com.example.backend.repository.PostRepository;
+import com.example.backend.repository.UserRepository;
+
+class PostServiceFeedSinceTest {
+
+	private final List<Post> stored = new ArrayList<>();
+	private PostService postService;
+
+	@BeforeEach
+	void setUp() {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.find(any(Query.class), eq(Post.class))).thenAnswer(call -> find(call.getArgument(0)));
+		when(mongoTemplate.find(any(Query.class), eq(PostTombstone.class))).thenReturn(new ArrayList<>());
+
+		FeedAssembler feedAssembler = mock(FeedAssembler.class);
+		when(feedAssembler.assemble(anyList())).thenAnswer(call -> {
+			List<Post> posts = call.getArgument(0);
+			return posts.stream().map(PostResponse::new).collect(Collectors.toList());
+		});
+
+		postService = new PostService(mock(PostRepository.class), mock(UserRepository.class), mongoTemplate,
+				feedAssembler, mock(MediaContentService.class), mock(MediaUploadPipeline.class),
+				mock(ChunkedUploadService.class), mock(TimelineService.class), mock(ScopeVersionService.class),
+				mock(VideoValidator.class));
+	}
+
+	@Test
+	void deltaWithNothingNewIsEmpty() {
+		LocalDateTime now = LocalDateTime.now();
+		store(now.minusMinutes(5));
+		Post newest = store(now.minusMinutes(3));
+
+		FeedDelta first = postService.getFeedSince(
+				new SinceCursor(newest.getCreatedAt(), newest.getId(), now.minusMinutes(1)).encode());
+		assertTrue(first.getPosts().isEmpty());
+
+		FeedDelta second = postService.getFeedSince(first.getCursor());
+		assertTrue(second.getPosts().isEmpty());
+	}
+
+	@Test
+	void postSavedLateBehindTheMarkIsDeliveredOnce() {
+		LocalDateTime lastSync = LocalDateTime.now().minusMinutes(1);
+		Post mark = store(lastSync.minusSeconds(3));
+		// Stamped before the mark but saved after the client's last sync
+		Post late = store(lastSync.minusSeconds(6));
+
+		FeedDelta first = postService.getFeedSince(
+				new SinceCursor(mark.getCreatedAt(), mark.getId(), lastSync).encode());
+		assertTrue(ids(first).contains(late.getId()));
+		// The window never moves the mark back
+		assertEquals(mark.getId(), SinceCursor.decode(first.getCursor()).getId());
+
+		FeedDelta second = postService.getFeedSince(first.getCursor());
+		assertTrue(second.getPosts().isEmpty());
+	}
+
+	@Test
+	void newPostsMoveTheMarkForward() {
+		LocalDateTime now = LocalDateTime.now();
+		Post mark = store(now.minusMinutes(5));
+		Post fresh = store(now.minusMinutes(2));
+
+		FeedDelta delta = postService.getFeedSince(
+				new SinceCursor(mark.getCreatedAt(), mark.getId(), now.minusMinutes(4)).encode());
+
+		assertEquals(List.of(fresh.getId()), ids(delta));
+		assertEquals(fresh.getId(), SinceCursor.decode(delta.getCursor()).getId());
+		assertFalse(delta.isReset());
+	}
+
+	private Post store(LocalDateTime createdAt) {
+		Post post = new Post();
+		post.setId(new ObjectId().toHexString());
+		post.setCreatedAt(createdAt);
+		stored.add(post);
+		return post;
+	}
+
+	// Just enough of the query for getFeedSince: a lower bound on createdAt, newest first
+	private List<Post> find(Query query) {
+		Document createdAt = (Document) query.getQueryObject().get("createdAt");
+		LocalDateTime from = (LocalDateTime) createdAt.get("$gte");
+		return stored.stream()
+				.filter(post -> !post.getCreatedAt().isBefore(from))
+				.sorted(Comparator.comparing(Post::getCreatedAt).thenComparing(Post::getId).reversed())
+				.limit(query.getLimit())
+				.collect(Collectors.toList());
+	}
+
+	private static List<String> ids(FeedDelta delta) {
+		return delta.getPosts().stream().map(PostResponse::getId).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,34 @@
+package com.example.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ScopeVersionServiceTest {
+
+	private static final String ETAG = "W/\"feed-65a1f0c2e4b0a1b2c3d4e5f6-7\"";
+
+	@Test
+	void matchesWeakAndStrongForms() {
+		assertTrue(ScopeVersionService.matches(ETAG, ETAG));
+		assertTrue(ScopeVersionService.matches("\"feed-65a1f0c2e4b0a1b2c3d4e5f6-7\"", ETAG));
+		assertTrue(ScopeVersionService.matches(ETAG, "\"feed-65a1f0c2e4b0a1b2c3d4e5f6-7\""));
+	}
+
+	@Test
+	void matchesAnyTagOfAList() {
+		assertTrue(ScopeVersionService.matches("W/\"feed-0\", " + ETAG, ETAG));
+		assertTrue(ScopeVersionService.matches(ETAG + ",W/\"user:1-0\"", ETAG));
+	}
+
+	@Test
+	void doesNotMatchOtherVersionsOrNothing() {
+		assertFalse(ScopeVersionService.matches(null, ETAG));
+		assertFalse(ScopeVersionService.matches("", ETAG));
+		assertFalse(ScopeVersionService.matches("W/\"feed-65a1f0c2e4b0a1b2c3d4e5f6-6\"", ETAG));
+		assertFalse(ScopeVersionService.matches("W/\"group:1-65a1f0c2e4b0a1b2c3d4e5f6-7\"", ETAG));
+		// The tag without its quotes is a different tag
+		assertFalse(ScopeVersionService.matches("W/feed-65a1f0c2e4b0a1b2c3d4e5f6-7", ETAG));
+	}
+}
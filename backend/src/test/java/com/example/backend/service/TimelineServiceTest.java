@@ -0,0 +1,94 @@
+package com.example.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.example.backend.model.Post;
+import com.example.backend.model.Timeline;
+import com.example.backend.model.TimelineEntry;
+
+class TimelineServiceTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 12, 9, 30);
+
+	private MongoTemplate mongoTemplate;
+	private TimelineService timelineService;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		timelineService = new TimelineService(mongoTemplate, mock(FeedAssembler.class),
+				mock(ScopeVersionService.class), Runnable::run, true, 1000);
+	}
+
+	@Test
+	void reseedPushesOnlyPostsMissingFromTheTimeline() {
+		Timeline timeline = new Timeline();
+		timeline.setId(Timeline.HOME);
+		timeline.setEntries(new ArrayList<>(List.of(entry("b", 2), entry("a", 1))));
+		when(mongoTemplate.findOne(any(Query.class), eq(Timeline.class))).thenReturn(timeline);
+		when(mongoTemplate.find(any(Query.class), eq(Post.class)))
+				.thenReturn(List.of(post("c", 3), post("b", 2), post("a", 1)));
+
+		timelineService.seed();
+
+		assertEquals(List.of("c"), pushedPostIds());
+	}
+
+	@Test
+	void firstSeedPushesEveryPost() {
+		when(mongoTemplate.find(any(Query.class), eq(Post.class)))
+				.thenReturn(List.of(post("b", 2), post("a", 1)));
+
+		timelineService.seed();
+
+		assertEquals(List.of("b", "a"), pushedPostIds());
+	}
+
+	private List<String> pushedPostIds() {
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(Timeline.class));
+
+		Document set = (Document) update.getValue().getUpdateObject().get("$set");
+		assertTrue(set.getBoolean("seeded"));
+		Update.Modifiers modifiers = (Update.Modifiers) ((Document) update.getValue().getUpdateObject()
+				.get("$push")).get("entries");
+		Object[] each = (Object[]) modifiers.getModifiers().stream()
+				.filter(modifier -> modifier.getKey().equals("$each"))
+				.findFirst()
+				.orElseThrow()
+				.getValue();
+		return List.of(each).stream()
+				.map(entry -> ((TimelineEntry) entry).getPostId())
+				.collect(Collectors.toList());
+	}
+
+	private static TimelineEntry entry(String postId, int minutes) {
+		return new TimelineEntry(postId, NOW.plusMinutes(minutes));
+	}
+
+	private static Post post(String id, int minutes) {
+		Post post = new Post();
+		post.setId(id);
+		post.setCreatedAt(NOW.plusMinutes(minutes));
+		return post;
+	}
+}
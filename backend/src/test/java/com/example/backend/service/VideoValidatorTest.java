@@ -0,0 +1,85 @@
+package com.example.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class VideoValidatorTest {
+
+	private final VideoValidator validator = new VideoValidator(List.of("video/mp4", "video/quicktime"), 15, 30);
+
+	@Test
+	void rejectsOversizedAndUnknownVideos() {
+		assertDoesNotThrow(() -> validator.validate("video/mp4", 15L * 1024 * 1024));
+		assertThrows(IllegalArgumentException.class, () -> validator.validate("video/mp4", 15L * 1024 * 1024 + 1));
+		assertThrows(IllegalArgumentException.class, () -> validator.validate("video/webm", 1024));
+		assertThrows(IllegalArgumentException.class, () -> validator.validate("video/mp4", 0));
+	}
+
+	@Test
+	void readsDurationWithMovieBoxAfterTheMediaData() throws IOException {
+		// Not "fast start": moov follows mdat, as most recorders write it
+		byte[] file = concat(box("ftyp", new byte[8]), box("mdat", new byte[4096]),
+				box("moov", concat(box("trak", new byte[16]), mvhd(0, 600, 600 * 12))));
+
+		assertEquals(12.0, VideoValidator.readDurationSeconds(new ByteArrayInputStream(file)), 0.001);
+		assertDoesNotThrow(() -> validator.validateDuration(new ByteArrayInputStream(file)));
+	}
+
+	@Test
+	void rejectsLongAndUnreadableVideos() throws IOException {
+		byte[] longVideo = concat(box("ftyp", new byte[8]), box("moov", mvhd(1, 1000, 31_000)));
+		assertThrows(IllegalArgumentException.class, () -> validator.validateDuration(new ByteArrayInputStream(longVideo)));
+
+		byte[] noHeader = concat(box("ftyp", new byte[8]), box("mdat", new byte[64]));
+		assertThrows(IllegalArgumentException.class, () -> validator.validateDuration(new ByteArrayInputStream(noHeader)));
+
+		byte[] truncated = { 0, 0, 1, 0, 'm', 'd', 'a', 't', 1, 2, 3 };
+		assertThrows(IllegalArgumentException.class, () -> validator.validateDuration(new ByteArrayInputStream(truncated)));
+	}
+
+	private static byte[] mvhd(int version, int timescale, long duration) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(version << 24);
+		if (version == 1) {
+			out.writeLong(0);
+			out.writeLong(0);
+			out.writeInt(timescale);
+			out.writeLong(duration);
+		} else {
+			out.writeInt(0);
+			out.writeInt(0);
+			out.writeInt(timescale);
+			out.writeInt((int) duration);
+		}
+		out.write(new byte[80]);
+		return box("mvhd", bytes.toByteArray());
+	}
+
+	private static byte[] box(String type, byte[] payload) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(8 + payload.length);
+		out.write(type.getBytes(StandardCharsets.ISO_8859_1));
+		out.write(payload);
+		return bytes.toByteArray();
+	}
+
+	private static byte[] concat(byte[]... parts) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		for (byte[] part : parts) {
+			bytes.write(part);
+		}
+		return bytes.toByteArray();
+	}
+}
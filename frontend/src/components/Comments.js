@@ -20,6 +20,9 @@ function Comments({
   const [replyContent, setReplyContent] = useState("");
   const [submittingReply, setSubmittingReply] = useState(false);
   const [expandedReplies, setExpandedReplies] = useState({});
+  const [loadingRepliesFor, setLoadingRepliesFor] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [reactingToComment, setReactingToComment] = useState(null);
 
   const [mentionQuery, setMentionQuery] = useState("");
@@ -42,18 +45,26 @@ function Comments({
   const fetchComments = async () => {
     try {
       setFetchingComments(true);
+      // Newest threads with their first replies; the rest of a thread is
+      // loaded on demand with its repliesCursor
       const response = await axiosInstance.get(
-        `/api/comments/post/${postId}?limit=100&includeReplies=true&hierarchical=true&currentUserId=${
-          user?.id || ""
-        }`
+        `/api/comments/post/${postId}/threads`,
+        {
+          params: {
+            limit: 20,
+            replies: 3,
+            currentUserId: user?.id || "",
+          },
+        }
       );
 
-      if (response.data && Array.isArray(response.data)) {
-        const processedComments = processCommentsAndReplies(response.data);
+      if (response.data && Array.isArray(response.data.comments)) {
+        const processedComments = response.data.comments.map((comment) => ({
+          ...comment,
+          replies: comment.replies || [],
+        }));
         setComments(processedComments);
-
-        const totalComments = countTotalComments(processedComments);
-        onCommentCountChange?.(totalComments);
+        setNextCursor(response.data.nextCursor);
 
         const repliesMap = {};
         processedComments.forEach((comment) => {
@@ -134,6 +145,91 @@ function Comments({
     );
   };
 
+  // Only part of a long thread is loaded, so the post's counter is the
+  // source of the total
+  const refreshCommentCount = async () => {
+    try {
+      const response = await axiosInstance.getCommentCount(postId);
+      onCommentCountChange?.(response.data.count);
+    } catch (error) {
+      console.error("Error fetching comment count:", error);
+    }
+  };
+
+  const loadMoreComments = async () => {
+    if (!nextCursor || loadingMore) return;
+
+    try {
+      setLoadingMore(true);
+      const response = await axiosInstance.get(
+        `/api/comments/post/${postId}/threads`,
+        {
+          params: {
+            cursor: nextCursor,
+            limit: 20,
+            replies: 3,
+            currentUserId: user?.id || "",
+          },
+        }
+      );
+
+      const olderComments = response.data.comments.map((comment) => ({
+        ...comment,
+        replies: comment.replies || [],
+      }));
+      setComments((prevComments) => {
+        const loadedIds = new Set(prevComments.map((comment) => comment.id));
+        return [
+          ...prevComments,
+          ...olderComments.filter((comment) => !loadedIds.has(comment.id)),
+        ];
+      });
+      setNextCursor(response.data.nextCursor);
+    } catch (error) {
+      console.error("Error loading more comments:", error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  const loadMoreReplies = async (parentComment) => {
+    try {
+      setLoadingRepliesFor(parentComment.id);
+      const response = await axiosInstance.get(
+        `/api/comments/${parentComment.id}/replies`,
+        {
+          params: {
+            after: parentComment.repliesCursor,
+            limit: 20,
+            currentUserId: user?.id || "",
+          },
+        }
+      );
+
+      setComments((prevComments) =>
+        prevComments.map((comment) => {
+          if (comment.id !== parentComment.id) return comment;
+          // Replies posted from here since the thread was loaded come back in the page
+          const loadedIds = new Set(comment.replies.map((reply) => reply.id));
+          return {
+            ...comment,
+            replies: [
+              ...comment.replies,
+              ...response.data.comments.filter(
+                (reply) => !loadedIds.has(reply.id)
+              ),
+            ],
+            repliesCursor: response.data.nextCursor,
+          };
+        })
+      );
+    } catch (error) {
+      console.error("Error loading replies:", error);
+    } finally {
+      setLoadingRepliesFor(null);
+    }
+  };
+
   const countTotalComments = (commentsWithReplies) => {
     let count = 0;
     commentsWithReplies.forEach((comment) => {
@@ -239,7 +335,7 @@ function Comments({
       const newCommentObj = { ...response.data, replies: [] };
       const updatedComments = [newCommentObj, ...comments];
       setComments(updatedComments);
-      onCommentCountChange?.(countTotalComments(updatedComments));
+      refreshCommentCount();
       setNewComment("");
       setMentionedUsers([]);
     } catch (error) {
@@ -294,7 +390,7 @@ function Comments({
       });
 
       setComments(updatedComments);
-      onCommentCountChange?.(countTotalComments(updatedComments));
+      refreshCommentCount();
       setReplyContent("");
       setReplyToComment(null);
       setMentionedUsers([]);
@@ -387,7 +483,7 @@ function Comments({
       }
 
       setComments(updatedComments);
-      onCommentCountChange?.(countTotalComments(updatedComments));
+      refreshCommentCount();
     } catch (error) {
       console.error("Error deleting comment:", error);
       alert("Failed to delete comment");
@@ -719,6 +815,18 @@ function Comments({
           </div>
         ))}
 
+        {parentComment.repliesCursor && (
+          <button
+            onClick={() => loadMoreReplies(parentComment)}
+            disabled={loadingRepliesFor === parentComment.id}
+            className="text-sm text-blue-500 hover:text-blue-700 disabled:text-gray-400"
+          >
+            {loadingRepliesFor === parentComment.id
+              ? "Loading replies..."
+              : "Load more replies"}
+          </button>
+        )}
+
         {expandedReplies[parentComment.id] && (
           <div className="pt-2">
             <form
@@ -1239,6 +1347,17 @@ function Comments({
                   </div>
                 </div>
               ))}
+              {nextCursor && (
+                <div className="text-center">
+                  <button
+                    onClick={loadMoreComments}
+                    disabled={loadingMore}
+                    className="text-sm text-blue-500 hover:text-blue-700 disabled:text-gray-400"
+                  >
+                    {loadingMore ? "Loading comments..." : "Load more comments"}
+                  </button>
+                </div>
+              )}
             </div>
           )}
         </div>
@@ -241,7 +241,13 @@ function CreatePost({ onPostCreated }) {
       formData.append("content", content);
 
       if (video) {
-        formData.append("video", video);
+        // Videos go up in resumable chunks first; the post only references them
+        const uploadId = await axiosInstance.uploadResumable(
+          video,
+          user.id,
+          setProgress
+        );
+        formData.append("uploadId", uploadId);
       } else if (images.length > 0) {
         images.forEach((image) => formData.append("images", image));
       }
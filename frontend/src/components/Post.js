@@ -14,6 +14,9 @@ import { AuthContext } from "../context/AuthContext";
 import { usePopup } from "../context/PopupContext";
 import ShareToGroupModal from "./ShareToGroupModal";
 
+// Feed column is at most ~670px wide; high-DPI screens get the larger derivative
+const FEED_IMAGE_SIZE = window.devicePixelRatio > 1 ? 1080 : 720;
+
 function Post({ post, onPostDeleted, onPostUpdated }) {
   const { isAuthenticated } = useContext(AuthContext);
   const { showConfirmation, showPopup } = usePopup();
@@ -28,7 +31,7 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
   const [mediaErrors, setMediaErrors] = useState({});
   const [showComments, setShowComments] = useState(false);
   const [showCommentInput, setShowCommentInput] = useState(false);
-  const [commentCount, setCommentCount] = useState(post.comments?.length || 0);
+  const [commentCount, setCommentCount] = useState(post.commentCount ?? 0);
   const [isUserAdmin, setIsUserAdmin] = useState(false);
   const [lastRefreshed, setLastRefreshed] = useState(Date.now());
   const [showReportModal, setShowReportModal] = useState(false);
@@ -110,11 +113,11 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
   `)
   );
 
-  const getMediaUrl = async (mediaId, originalUrl) => {
+  const getMediaUrl = async (mediaId, originalUrl, size) => {
     if (!mediaId) return getFullUrl(originalUrl);
 
     try {
-      const response = await axiosInstance.getMedia(mediaId);
+      const response = await axiosInstance.getMedia(mediaId, size);
       if (response.data && typeof response.data === "string") {
         return response.data;
       }
@@ -127,7 +130,12 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
     }
   };
 
+  // Media is still being stored; it is loaded once the post turns READY
+  const mediaPending = post.mediaStatus === "PENDING";
+
   useEffect(() => {
+    if (mediaPending) return;
+
     const loadMedia = async () => {
       const newMediaUrls = {};
 
@@ -144,7 +152,7 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
         for (const url of post.imageUrls) {
           const mediaId = url.split("/").pop();
           try {
-            const mediaUrl = await getMediaUrl(mediaId, url);
+            const mediaUrl = await getMediaUrl(mediaId, url, FEED_IMAGE_SIZE);
             newMediaUrls[mediaId] = mediaUrl;
           } catch (error) {
             console.error("Failed to load image:", error);
@@ -164,7 +172,7 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
         }
       });
     };
-  }, [post.videoUrl, post.imageUrls]);
+  }, [post.videoUrl, post.imageUrls, mediaPending]);
 
   const debounce = (func, wait) => {
     let timeout;
@@ -186,9 +194,13 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
         isRefreshingRef.current = true;
         setQuietUpdate(quiet);
 
-        const response = await axiosInstance.get(`/api/posts/${post.id}`);
+        const response = await axiosInstance.get(`/api/posts/${post.id}`, {
+          params: { include: "commentCount" },
+        });
         if (response.data) {
-          setCommentCount(response.data.comments?.length || 0);
+          if (response.data.commentCount != null) {
+            setCommentCount(response.data.commentCount);
+          }
 
           const hasSignificantChanges =
             previousPostRef.current.content !== response.data.content ||
@@ -280,8 +292,11 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
             }
           );
 
-          const response = await axiosInstance.getCommentCount(post.id);
-          setCommentCount(response.data.count);
+          // Posts not counted yet come without a commentCount
+          if (post.commentCount == null) {
+            const response = await axiosInstance.getCommentCount(post.id);
+            setCommentCount(response.data.count);
+          }
         } catch (error) {
           console.warn(`Failed to setup WebSocket for post ${post.id}:`, error);
         }
@@ -293,7 +308,7 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
         if (wsSubscription) wsSubscription();
       };
     }
-  }, [isAuthenticated, user, post.id, debouncedRefresh]);
+  }, [isAuthenticated, user, post.id, post.commentCount, debouncedRefresh]);
 
   const handleDelete = async () => {
     showConfirmation({
@@ -429,7 +444,7 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
   const handleCommentCountChange = (newCount) => {
     setCommentCount(newCount);
     if (onPostUpdated) {
-      onPostUpdated({ ...post, comments: new Array(newCount) });
+      onPostUpdated({ ...post, commentCount: newCount });
     }
   };
 
@@ -852,7 +867,13 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
                 />
 
                 <div className="space-y-4 mt-3">
-                  {post.videoUrl && (
+                  {mediaPending && (
+                    <p className="px-5 text-sm text-gray-500">
+                      Processing media...
+                    </p>
+                  )}
+
+                  {post.videoUrl && !mediaPending && (
                     <div className="rounded-lg overflow-hidden shadow-sm">
                       <video
                         src={mediaUrls.video || getFullUrl(post.videoUrl)}
@@ -869,7 +890,7 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
                     </div>
                   )}
 
-                  {post.imageUrls?.length > 0 && (
+                  {post.imageUrls?.length > 0 && !mediaPending && (
                     <div
                       className={`grid ${
                         post.imageUrls.length === 1
@@ -879,6 +900,12 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
                     >
                       {post.imageUrls.map((url, index) => {
                         const mediaId = url.split("/").pop();
+                        // Inline preview from the feed response: reserves the
+                        // image's space and shows a blurred placeholder until
+                        // the real bytes arrive, without another request
+                        const preview = post.imagePreviews?.[index];
+                        const showPlaceholder =
+                          !mediaUrls[mediaId] && !!preview?.placeholder;
                         return (
                           <div
                             key={index}
@@ -891,9 +918,24 @@ function Post({ post, onPostDeleted, onPostUpdated }) {
                             }`}
                           >
                             <img
-                              src={mediaUrls[mediaId] || getFullUrl(url)}
+                              src={
+                                mediaUrls[mediaId] ||
+                                preview?.placeholder ||
+                                getFullUrl(url)
+                              }
                               alt={`Post image ${index + 1}`}
-                              className="w-full h-full object-cover max-h-[500px]"
+                              width={preview?.width}
+                              height={preview?.height}
+                              style={
+                                preview?.width && preview?.height
+                                  ? {
+                                      aspectRatio: `${preview.width} / ${preview.height}`,
+                                    }
+                                  : undefined
+                              }
+                              className={`w-full h-full object-cover max-h-[500px] ${
+                                showPlaceholder ? "blur-md" : ""
+                              }`}
                               onError={(e) => {
                                 console.error("Image failed to load:", url);
                                 e.target.src = FALLBACK_IMAGE_URL;
@@ -3,8 +3,21 @@ import CreatePost from "../components/CreatePost";
 import Post from "../components/Post";
 import Header from "../components/Header";
 import axiosInstance from "../utils/axios";
+import WebSocketService from "../services/WebSocketService";
 import { useNavigate } from "react-router-dom";
 
+// Fill in a display name for posts whose author name is missing
+const normalizePost = (post) => {
+  if (!post.userName || post.userName === "Deleted User") {
+    if (post.userFirstName || post.userLastName) {
+      post.userName = `${post.userFirstName || ""} ${
+        post.userLastName || ""
+      }`.trim();
+    }
+  }
+  return post;
+};
+
 function Home() {
   const [posts, setPosts] = useState([]);
   const [loading, setLoading] = useState(true);
@@ -13,6 +26,12 @@ function Home() {
   const fetchTimeoutRef = useRef(null);
   const isFetchingRef = useRef(false);
   const [silentRefresh, setSilentRefresh] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
+  // Media updates can arrive before the create response, so remember them
+  const mediaStatusRef = useRef({});
+  // High-water mark for silent refreshes, from the first page or the last delta
+  const sinceCursorRef = useRef(null);
 
   const fetchUserData = async () => {
     try {
@@ -65,7 +84,34 @@ function Home() {
           console.log("Fetching posts...");
         }
 
-        const response = await axiosInstance.get("/api/posts");
+        let reload = false;
+        if (silent && sinceCursorRef.current) {
+          // Only what changed since the last sync: new posts and deleted IDs
+          const delta = await axiosInstance.get("/api/posts/since", {
+            params: { cursor: sinceCursorRef.current },
+          });
+          if (!delta.data.reset) {
+            const deletedIds = new Set(delta.data.deletedIds);
+            const freshPosts = delta.data.posts.map(normalizePost);
+            if (freshPosts.length > 0 || deletedIds.size > 0) {
+              setPosts((prevPosts) => {
+                const currentPostIds = new Set(prevPosts.map((p) => p.id));
+                return [
+                  ...freshPosts.filter((p) => !currentPostIds.has(p.id)),
+                  ...prevPosts.filter((p) => !deletedIds.has(p.id)),
+                ];
+              });
+            }
+            sinceCursorRef.current = delta.data.cursor;
+            console.log("Silent refresh completed");
+            return;
+          }
+          // Too much changed for a delta; start over from the first page
+          reload = true;
+        }
+
+        // First feed page only; older pages are fetched with loadMorePosts
+        const response = await axiosInstance.get("/api/posts/feed");
 
         if (silent) {
           console.log("Silent refresh completed");
@@ -74,35 +120,25 @@ function Home() {
         }
 
         // Process the posts but don't filter out shared posts
-        const processedPosts = response.data.map((post) => {
-          if (!post.userName || post.userName === "Deleted User") {
-            if (post.userFirstName || post.userLastName) {
-              post.userName = `${post.userFirstName || ""} ${
-                post.userLastName || ""
-              }`.trim();
-            }
-          }
-          return post;
-        });
+        const processedPosts = response.data.posts.map(normalizePost);
+        sinceCursorRef.current = response.data.sinceCursor;
 
         // Compare old and new posts to see if we should update state
-        if (silent) {
-          const currentPostIds = posts.map((p) => p.id);
-          const newPostIds = processedPosts.map((p) => p.id);
-
-          // Check if there are new posts or if post order changed
-          const hasNewPosts = newPostIds.some(
-            (id) => !currentPostIds.includes(id)
-          );
-          const postOrderChanged = !newPostIds.every(
-            (id, index) => currentPostIds[index] === id
-          );
-
-          if (hasNewPosts || postOrderChanged) {
-            setPosts(processedPosts);
-          }
+        if (silent && !reload) {
+          // Only the newest page was fetched, so merge it in front of what
+          // is already loaded instead of replacing older pages
+          setPosts((prevPosts) => {
+            const currentPostIds = prevPosts.map((p) => p.id);
+            const freshPosts = processedPosts.filter(
+              (p) => !currentPostIds.includes(p.id)
+            );
+            return freshPosts.length > 0
+              ? [...freshPosts, ...prevPosts]
+              : prevPosts;
+          });
         } else {
           setPosts(processedPosts);
+          setNextCursor(response.data.nextCursor);
         }
       } catch (error) {
         if (!silent) {
@@ -122,13 +158,48 @@ function Home() {
         }
       }
     },
-    [posts]
+    []
   );
 
+  const loadMorePosts = async () => {
+    if (!nextCursor || loadingMore) return;
+
+    try {
+      setLoadingMore(true);
+      const response = await axiosInstance.get("/api/posts/feed", {
+        params: { cursor: nextCursor },
+      });
+      setPosts((prevPosts) => {
+        const currentPostIds = prevPosts.map((p) => p.id);
+        return [
+          ...prevPosts,
+          ...response.data.posts.filter((p) => !currentPostIds.includes(p.id)),
+        ];
+      });
+      setNextCursor(response.data.nextCursor);
+    } catch (error) {
+      console.error("Error loading more posts:", error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   useEffect(() => {
     fetchUserData();
     fetchPosts();
 
+    // Uploaded media is stored in the background; flip posts out of PENDING
+    WebSocketService.setMediaCallback((update) => {
+      mediaStatusRef.current[update.postId] = update.status;
+      setPosts((prevPosts) =>
+        prevPosts.map((post) =>
+          post.id === update.postId
+            ? { ...post, mediaStatus: update.status }
+            : post
+        )
+      );
+    });
+
     // Set up periodic silent refresh
     const intervalId = setInterval(() => {
       fetchPosts(true); // Silent refresh
@@ -136,6 +207,7 @@ function Home() {
 
     return () => {
       clearInterval(intervalId);
+      WebSocketService.setMediaCallback(null);
       if (fetchTimeoutRef.current) {
         clearTimeout(fetchTimeoutRef.current);
       }
@@ -168,6 +240,10 @@ function Home() {
       newPost.id = `temp-${Date.now()}`;
     }
 
+    if (mediaStatusRef.current[newPost.id]) {
+      newPost.mediaStatus = mediaStatusRef.current[newPost.id];
+    }
+
     setPosts((prevPosts) => [newPost, ...prevPosts]);
     console.log("Posts state updated. Total posts:", posts.length + 1);
 
@@ -239,6 +315,17 @@ function Home() {
               </p>
             </div>
           )}
+          {nextCursor && (
+            <div className="flex justify-center">
+              <button
+                onClick={loadMorePosts}
+                disabled={loadingMore}
+                className="px-4 py-2 text-sm font-medium text-blue-600 bg-white rounded-lg shadow hover:bg-blue-50 disabled:opacity-50"
+              >
+                {loadingMore ? "Loading..." : "Load more"}
+              </button>
+            </div>
+          )}
         </div>
       </div>
     </>
@@ -132,6 +132,26 @@ class WebSocketService {
           }
         }
 
+        // Subscribe to media processing updates for posts with uploads
+        try {
+          this.client.subscribe(
+            "/topic/media",
+            (message) => {
+              if (this.mediaCallback) {
+                try {
+                  const update = JSON.parse(message.body);
+                  this.mediaCallback(update);
+                } catch (error) {
+                  console.error("Error parsing media update:", error);
+                }
+              }
+            },
+            { id: "media-updates" }
+          );
+        } catch (error) {
+          console.error("Error subscribing to media updates:", error);
+        }
+
         // Process any pending subscriptions
         this.processPendingSubscriptions();
       };
@@ -218,6 +238,10 @@ class WebSocketService {
     this.notificationCallback = callback;
   }
 
+  setMediaCallback(callback) {
+    this.mediaCallback = callback;
+  }
+
   setReactionCallback(callback) {
     this.reactionCallback = callback;
   }
@@ -91,8 +91,7 @@ axiosInstance.interceptors.request.use(
           ...config.headers,
           Authorization: config.headers.Authorization,
           Accept: "*/*",
-          "Cache-Control": "no-cache",
-          Pragma: "no-cache",
+          // Media is served as immutable; let the browser cache answer repeats
           "X-Requested-With": "XMLHttpRequest",
         };
       }
@@ -299,30 +298,99 @@ axiosInstance.uploadMedia = (url, data, options = {}) => {
   });
 };
 
+// Resumable upload for large files (videos): the file is sent in chunks and a
+// failed chunk is retried from the offset the server reports, so a flaky
+// connection never restarts the whole upload. Resolves to the upload ID to
+// pass to /api/posts.
+const UPLOAD_CHUNKS_PER_REQUEST = 4;
+const UPLOAD_MAX_RETRIES = 5;
+
+axiosInstance.uploadResumable = async (file, userId, onProgress) => {
+  const { data: session } = await axiosInstance.post("/api/uploads", null, {
+    params: {
+      userId,
+      filename: file.name,
+      contentType: file.type,
+      length: file.size,
+    },
+  });
+
+  const uploadUrl = `/api/uploads/${session.uploadId}`;
+  const requestSize = session.chunkSize * UPLOAD_CHUNKS_PER_REQUEST;
+  let offset = session.offset;
+  let retries = 0;
+
+  while (offset < file.size) {
+    try {
+      const response = await axiosInstance.patch(
+        uploadUrl,
+        file.slice(offset, offset + requestSize),
+        {
+          params: { userId },
+          timeout: 60000,
+          headers: {
+            "Content-Type": "application/offset+octet-stream",
+            "Upload-Offset": offset,
+          },
+        }
+      );
+      offset = Number(response.headers["upload-offset"]);
+      retries = 0;
+    } catch (error) {
+      if (axios.isCancel(error) || ++retries > UPLOAD_MAX_RETRIES) {
+        throw error;
+      }
+      if (error.response?.status === 409) {
+        offset = Number(error.response.headers["upload-offset"]);
+      } else {
+        // Ask the server how much arrived before the failure
+        await new Promise((resolve) => setTimeout(resolve, 1000 * retries));
+        try {
+          const status = await axiosInstance.head(uploadUrl, {
+            params: { userId },
+          });
+          offset = Number(status.headers["upload-offset"]);
+        } catch (headError) {
+          // Still unreachable; the next attempt resends from the last known offset
+        }
+      }
+    }
+    if (onProgress) {
+      onProgress(Math.round((offset * 100) / file.size));
+    }
+  }
+
+  await axiosInstance.post(`${uploadUrl}/complete`, null, {
+    params: { userId },
+  });
+  return session.uploadId;
+};
+
 // Add method for safer comment count fetching
 axiosInstance.getCommentCount = async (postId) => {
   return axiosInstance.get(`/api/comments/count/${postId}`);
 };
 
-// Add method for safer media fetching
-axiosInstance.getMedia = async (mediaId) => {
-  const isMediaRequestInProgress = pendingRequests.has(`media_${mediaId}`);
+// Add method for safer media fetching; size picks a resized derivative
+axiosInstance.getMedia = async (mediaId, size) => {
+  const requestKey = size ? `media_${mediaId}_${size}` : `media_${mediaId}`;
+  const isMediaRequestInProgress = pendingRequests.has(requestKey);
   if (isMediaRequestInProgress) {
-    return pendingRequests.get(`media_${mediaId}`);
+    return pendingRequests.get(requestKey);
   }
 
   const requestPromise = axiosInstance
-    .get(`/api/media/${mediaId}`)
+    .get(`/api/media/${mediaId}`, size ? { params: { size } } : undefined)
     .then((response) => {
-      pendingRequests.delete(`media_${mediaId}`);
+      pendingRequests.delete(requestKey);
       return response;
     })
     .catch((error) => {
-      pendingRequests.delete(`media_${mediaId}`);
+      pendingRequests.delete(requestKey);
       throw error;
     });
 
-  pendingRequests.set(`media_${mediaId}`, requestPromise);
+  pendingRequests.set(requestKey, requestPromise);
   return requestPromise;
 };
 